@@ -0,0 +1,78 @@
+import benchmarks.Workload;
+
+/**
+ * Workloads measuring the operations of Board.
+ * 
+ * @author László Tárkányi
+ */
+public class BoardWorkloads {
+    /**
+     * Copies a complete board into another one.
+     */
+    public static class CopyValues implements Workload {
+        private Board original;
+        private Board copy;
+
+        @Override
+        public void setUp(int complexity, String option) {
+            this.original = new Board(complexity);
+            BoardFactory.generateSolution(this.original, complexity, BoardFactory.Engine.DANCING_LINKS);
+            this.copy = new Board(complexity);
+        }
+
+        @Override
+        public Object run() {
+            this.copy.copyValues(this.original);
+            return this.copy;
+        }
+    }
+
+    /**
+     * Compares two equal complete boards, the worst case of the comparison.
+     */
+    public static class Equals implements Workload {
+        private Board first;
+        private Board second;
+
+        @Override
+        public void setUp(int complexity, String option) {
+            this.first = new Board(complexity);
+            BoardFactory.generateSolution(this.first, complexity, BoardFactory.Engine.DANCING_LINKS);
+            this.second = new Board(complexity);
+            this.second.copyValues(this.first);
+        }
+
+        @Override
+        public Object run() {
+            return this.first.equals(this.second);
+        }
+    }
+
+    /**
+     * Carves a puzzle of the chosen difficulty out of a complete board.
+     */
+    public static class SetPuzzleDifficulty implements Workload {
+        private Board solution;
+        private Board puzzle;
+        private int numOfClues;
+
+        @Override
+        public void setUp(int complexity, String option) {
+            this.solution = new Board(complexity);
+            BoardFactory.generateSolution(this.solution, complexity, BoardFactory.Engine.DANCING_LINKS);
+            this.puzzle = new Board(complexity);
+            this.numOfClues = Difficulty.valueOf(option).getNumOfClues(complexity);
+        }
+
+        @Override
+        public void reset() {
+            this.puzzle.copyValues(this.solution);
+        }
+
+        @Override
+        public Object run() {
+            this.puzzle.setPuzzleDifficulty(this.numOfClues);
+            return this.puzzle;
+        }
+    }
+}
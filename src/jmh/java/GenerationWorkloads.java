@@ -0,0 +1,29 @@
+import benchmarks.Workload;
+
+/**
+ * Workloads measuring the generation of complete boards.
+ * 
+ * @author László Tárkányi
+ */
+public class GenerationWorkloads {
+    /**
+     * Fills an empty board with the chosen engine.
+     */
+    public static class GenerateSolution implements Workload {
+        private int complexity;
+        private BoardFactory.Engine engine;
+
+        @Override
+        public void setUp(int complexity, String option) {
+            this.complexity = complexity;
+            this.engine = BoardFactory.Engine.valueOf(option);
+        }
+
+        @Override
+        public Object run() {
+            Board b = new Board(this.complexity);
+            BoardFactory.generateSolution(b, this.complexity, this.engine);
+            return b;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+import java.util.Random;
+
+import benchmarks.Workload;
+
+/**
+ * Workloads measuring the grading of puzzles by technique.
+ * 
+ * @author László Tárkányi
+ */
+public class GradingWorkloads {
+    /**
+     * Grades a fixed set of puzzles of the chosen difficulty in turn.
+     */
+    public static class Grade implements Workload {
+        private static final int PUZZLE_COUNT = 64;
+
+        private Board[] puzzles;
+        private TechniqueGrader grader;
+        private int next;
+
+        @Override
+        public void setUp(int complexity, String option) {
+            Random random = new Random(complexity);
+            int numOfClues = Difficulty.valueOf(option).getNumOfClues(complexity);
+            this.puzzles = new Board[PUZZLE_COUNT];
+            this.grader = new TechniqueGrader(complexity);
+
+            for (int i = 0; i < PUZZLE_COUNT; i++) {
+                this.puzzles[i] = new Board(complexity);
+                BoardFactory.generateSolution(this.puzzles[i], complexity, BoardFactory.Engine.DANCING_LINKS, random);
+                this.puzzles[i].setPuzzleDifficulty(numOfClues, random);
+            }
+        }
+
+        @Override
+        public Object run() {
+            Board puzzle = this.puzzles[this.next];
+            this.next = (this.next + 1) % PUZZLE_COUNT;
+            return this.grader.grade(puzzle);
+        }
+    }
+}
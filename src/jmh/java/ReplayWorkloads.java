@@ -0,0 +1,153 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import benchmarks.Workload;
+
+/**
+ * Workloads measuring the replay file I/O of ReplayManagerSingleton.
+ * The replay file is written into the working directory, the benchmark profile runs in target.
+ * 
+ * @author László Tárkányi
+ */
+public class ReplayWorkloads {
+    private static final int SAVED_GAMES = 20;
+    private static final String REPLAY_FILE = "replays.dat";
+    private static final String INDEX_FILE = "replays.idx";
+    private static final String PRISTINE_SUFFIX = ".pristine";
+
+    /**
+     * Plays a game of the given size from start to end the way a player would,
+     * filling the empty fields in a random order with an occasional mistake.
+     * 
+     * @param complexity The length of one side of the board.
+     * @param random The source of randomness.
+     * @return The initial board and the steps log of the game.
+     */
+    static Replay playGame(int complexity, Random random) {
+        Board solution = new Board(complexity);
+        BoardFactory.generateSolution(solution, complexity, BoardFactory.Engine.DANCING_LINKS, random);
+        Board board = new Board(complexity);
+        board.copyValues(solution);
+        board.setPuzzleDifficulty(Difficulty.INTERMEDIATE.getNumOfClues(complexity), random);
+        Board initialBoard = new Board(complexity);
+        initialBoard.copyValues(board);
+
+        List<Coordinate> empty = new ArrayList<Coordinate>();
+        for (int i = 0; i < complexity; i++) {
+            for (int j = 0; j < complexity; j++) {
+                if (board.getValue(new Coordinate(i, j)) == 0) {
+                    empty.add(new Coordinate(i, j));
+                }
+            }
+        }
+        Collections.shuffle(empty, random);
+
+        Deque<Step> steps = new ArrayDeque<Step>();
+        int mistakes = 0;
+        for (Coordinate cursor : empty) {
+            if (mistakes < 2 && random.nextInt(20) == 0 && complexity > 1) {
+                steps.add(new Step(cursor, solution.getValue(cursor) % complexity + 1, 0, 0));
+                mistakes++;
+            }
+            steps.add(new Step(cursor, solution.getValue(cursor), 0, solution.getValue(cursor)));
+            board.updateField(cursor, solution.getValue(cursor));
+        }
+        return new Replay(initialBoard, steps);
+    }
+
+    /**
+     * Writes a replay file with a number of finished games and keeps a copy of it,
+     * so that every run starts from the same file.
+     */
+    private abstract static class ReplayWorkload implements Workload {
+        protected ReplayManagerSingleton manager;
+        protected Replay nextGame;
+
+        @Override
+        public void setUp(int complexity, String option) throws Exception {
+            new File(REPLAY_FILE).delete();
+            new File(INDEX_FILE).delete();
+            this.manager = ReplayManagerSingleton.getInstance();
+            this.manager.readReplaysFromFile();
+
+            Random random = new Random(complexity);
+            for (int i = 0; i < SAVED_GAMES; i++) {
+                Replay game = playGame(complexity, random);
+                this.manager.saveReplayToFile(game.getInitialBoard(), game.getGame());
+            }
+            this.nextGame = playGame(complexity, random);
+            copy(REPLAY_FILE, REPLAY_FILE + PRISTINE_SUFFIX);
+            copy(INDEX_FILE, INDEX_FILE + PRISTINE_SUFFIX);
+        }
+
+        protected static void copy(String from, String to) throws Exception {
+            Files.copy(new File(from).toPath(), new File(to).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Saves one more game into the replay file.
+     */
+    public static class Save extends ReplayWorkload {
+        @Override
+        public void reset() throws Exception {
+            copy(REPLAY_FILE + PRISTINE_SUFFIX, REPLAY_FILE);
+            copy(INDEX_FILE + PRISTINE_SUFFIX, INDEX_FILE);
+        }
+
+        @Override
+        public Object run() {
+            this.manager.saveReplayToFile(this.nextGame.getInitialBoard(), this.nextGame.getGame());
+            return this.manager;
+        }
+    }
+
+    /**
+     * Lists the games of the replay file the way the replay menu does.
+     */
+    public static class Listing extends ReplayWorkload {
+        @Override
+        public Object run() {
+            return this.manager.listReplays();
+        }
+    }
+
+    /**
+     * Moves a cursor on the last game of the replay file to a random step, the way the replay viewer does.
+     */
+    public static class Seek extends ReplayWorkload {
+        private ReplayCursor cursor;
+        private Random random;
+
+        @Override
+        public void setUp(int complexity, String option) throws Exception {
+            super.setUp(complexity, option);
+            List<ReplaySummary> summaries = this.manager.listReplays();
+            this.cursor = this.manager.openReplay(summaries.get(summaries.size() - 1));
+            this.random = new Random(complexity);
+        }
+
+        @Override
+        public Object run() throws Exception {
+            this.cursor.seek(this.random.nextInt(this.cursor.getStepCount() + 1));
+            return this.cursor.getBoard();
+        }
+    }
+
+    /**
+     * Loads every game from the replay file.
+     */
+    public static class Load extends ReplayWorkload {
+        @Override
+        public Object run() {
+            return this.manager.readReplaysFromFile();
+        }
+    }
+}
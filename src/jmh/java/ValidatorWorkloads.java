@@ -0,0 +1,65 @@
+import java.util.Random;
+
+import benchmarks.Workload;
+
+/**
+ * Workloads measuring the constraint checks of Validator.
+ * 
+ * @author László Tárkányi
+ */
+public class ValidatorWorkloads {
+    /**
+     * Checks a different location and number of a half-filled puzzle on every run.
+     */
+    public static class IsLocationValid implements Workload {
+        private Board board;
+        private Validator validator;
+        private Coordinate[] cursors;
+        private int[] nums;
+        private int index;
+
+        @Override
+        public void setUp(int complexity, String option) {
+            Board solution = new Board(complexity);
+            BoardFactory.generateSolution(solution, complexity, BoardFactory.Engine.DANCING_LINKS);
+            this.board = new Board(complexity);
+            this.board.copyValues(solution);
+            this.board.setPuzzleDifficulty(Difficulty.INTERMEDIATE.getNumOfClues(complexity));
+            this.validator = Validator.of(complexity);
+
+            Random random = new Random(complexity);
+            this.cursors = new Coordinate[1024];
+            this.nums = new int[this.cursors.length];
+            for (int i = 0; i < this.cursors.length; i++) {
+                this.cursors[i] = new Coordinate(random.nextInt(complexity), random.nextInt(complexity));
+                this.nums[i] = random.nextInt(complexity) + 1;
+            }
+        }
+
+        @Override
+        public Object run() {
+            this.index = (this.index + 1) & (this.cursors.length - 1);
+            return this.validator.isLocationValid(this.cursors[this.index], this.nums[this.index], this.board);
+        }
+    }
+
+    /**
+     * Scans a complete board, the worst case of the check.
+     */
+    public static class HasEmptySquare implements Workload {
+        private Board board;
+        private Validator validator;
+
+        @Override
+        public void setUp(int complexity, String option) {
+            this.board = new Board(complexity);
+            BoardFactory.generateSolution(this.board, complexity, BoardFactory.Engine.DANCING_LINKS);
+            this.validator = Validator.of(complexity);
+        }
+
+        @Override
+        public Object run() {
+            return this.validator.hasEmptySquare(this.board);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures copying and comparing whole boards.
+ * 
+ * @author László Tárkányi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    @Param({"4", "9", "16", "25"})
+    private int complexity;
+
+    private Workload copyValues;
+    private Workload equals;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.copyValues = Workload.load("BoardWorkloads$CopyValues");
+        this.copyValues.setUp(this.complexity, null);
+        this.equals = Workload.load("BoardWorkloads$Equals");
+        this.equals.setUp(this.complexity, null);
+    }
+
+    @Benchmark
+    public Object copyValues() throws Exception {
+        return this.copyValues.run();
+    }
+
+    @Benchmark
+    public Object equals() throws Exception {
+        return this.equals.run();
+    }
+}
@@ -0,0 +1,54 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Board.setPuzzleDifficulty per board size and difficulty.
+ * Every invocation carves a fresh copy of the same complete board.
+ * 
+ * @author László Tárkányi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CarvingBenchmark {
+    @Param({"9", "16"})
+    private int complexity;
+
+    @Param({"EASY", "INTERMEDIATE", "EXPERT", "GAMER"})
+    private String difficulty;
+
+    private Workload setPuzzleDifficulty;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.setPuzzleDifficulty = Workload.load("BoardWorkloads$SetPuzzleDifficulty");
+        this.setPuzzleDifficulty.setUp(this.complexity, this.difficulty);
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() throws Exception {
+        this.setPuzzleDifficulty.reset();
+    }
+
+    @Benchmark
+    public Object setPuzzleDifficulty() throws Exception {
+        return this.setPuzzleDifficulty.run();
+    }
+}
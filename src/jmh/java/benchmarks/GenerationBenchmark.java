@@ -0,0 +1,48 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures BoardFactory.generateSolution per board size.
+ * Every engine is measured, a single one can be selected with -p engine=DANCING_LINKS.
+ * 
+ * @author László Tárkányi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerationBenchmark {
+    @Param({"4", "9", "16", "25"})
+    private int complexity;
+
+    @Param({"DANCING_LINKS", "BACKTRACKING", "SYMMETRY"})
+    private String engine;
+
+    private Workload generateSolution;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.generateSolution = Workload.load("GenerationWorkloads$GenerateSolution");
+        this.generateSolution.setUp(this.complexity, this.engine);
+    }
+
+    @Benchmark
+    public Object generateSolution() throws Exception {
+        return this.generateSolution.run();
+    }
+}
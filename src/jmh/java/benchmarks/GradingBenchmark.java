@@ -0,0 +1,47 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures TechniqueGrader.grade per board size and difficulty.
+ * 
+ * @author László Tárkányi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GradingBenchmark {
+    @Param({"9", "16"})
+    private int complexity;
+
+    @Param({"EASY", "INTERMEDIATE", "EXPERT", "GAMER"})
+    private String difficulty;
+
+    private Workload grade;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.grade = Workload.load("GradingWorkloads$Grade");
+        this.grade.setUp(this.complexity, this.difficulty);
+    }
+
+    @Benchmark
+    public Object grade() throws Exception {
+        return this.grade.run();
+    }
+}
@@ -0,0 +1,110 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures saving, listing, seeking in and loading a replay file holding a number of finished games.
+ * The state is per benchmark since both workloads share the replay file of the working directory.
+ * 
+ * @author László Tárkányi
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplayBenchmark {
+    @State(Scope.Benchmark)
+    public static class SaveState {
+        @Param({"9", "16"})
+        private int complexity;
+
+        private Workload save;
+
+        @Setup
+        public void setUp() throws Exception {
+            this.save = Workload.load("ReplayWorkloads$Save");
+            this.save.setUp(this.complexity, null);
+        }
+
+        @Setup(Level.Invocation)
+        public void reset() throws Exception {
+            this.save.reset();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LoadState {
+        @Param({"9", "16"})
+        private int complexity;
+
+        private Workload load;
+
+        @Setup
+        public void setUp() throws Exception {
+            this.load = Workload.load("ReplayWorkloads$Load");
+            this.load.setUp(this.complexity, null);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ListState {
+        @Param({"9", "16"})
+        private int complexity;
+
+        private Workload list;
+
+        @Setup
+        public void setUp() throws Exception {
+            this.list = Workload.load("ReplayWorkloads$Listing");
+            this.list.setUp(this.complexity, null);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SeekState {
+        @Param({"9", "16"})
+        private int complexity;
+
+        private Workload seek;
+
+        @Setup
+        public void setUp() throws Exception {
+            this.seek = Workload.load("ReplayWorkloads$Seek");
+            this.seek.setUp(this.complexity, null);
+        }
+    }
+
+    @Benchmark
+    public Object save(SaveState state) throws Exception {
+        return state.save.run();
+    }
+
+    @Benchmark
+    public Object list(ListState state) throws Exception {
+        return state.list.run();
+    }
+
+    @Benchmark
+    public Object seek(SeekState state) throws Exception {
+        return state.seek.run();
+    }
+
+    @Benchmark
+    public Object load(LoadState state) throws Exception {
+        return state.load.run();
+    }
+}
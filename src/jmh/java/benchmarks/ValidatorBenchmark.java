@@ -0,0 +1,52 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the Validator checks used by gameplay.
+ * 
+ * @author László Tárkányi
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmark {
+    @Param({"4", "9", "16", "25"})
+    private int complexity;
+
+    private Workload isLocationValid;
+    private Workload hasEmptySquare;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.isLocationValid = Workload.load("ValidatorWorkloads$IsLocationValid");
+        this.isLocationValid.setUp(this.complexity, null);
+        this.hasEmptySquare = Workload.load("ValidatorWorkloads$HasEmptySquare");
+        this.hasEmptySquare.setUp(this.complexity, null);
+    }
+
+    @Benchmark
+    public Object isLocationValid() throws Exception {
+        return this.isLocationValid.run();
+    }
+
+    @Benchmark
+    public Object hasEmptySquare() throws Exception {
+        return this.hasEmptySquare.run();
+    }
+}
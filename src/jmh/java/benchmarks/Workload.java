@@ -0,0 +1,47 @@
+package benchmarks;
+
+/**
+ * A piece of engine code measured by a benchmark.
+ * JMH does not accept benchmarks in the default package and named packages cannot import
+ * the engine classes from it, so workloads are implemented in the default package
+ * and the benchmarks load them by name through this interface.
+ * 
+ * @author László Tárkányi
+ */
+public interface Workload {
+    /**
+     * Prepares the workload once per trial.
+     * 
+     * @param complexity The length of one side of the boards used.
+     * @param option A workload specific option, such as the generation engine, may be null.
+     */
+    void setUp(int complexity, String option) throws Exception;
+
+    /**
+     * Restores the state modified by the previous run, called before every invocation
+     * by benchmarks that measure a mutating operation.
+     */
+    default void reset() throws Exception {
+    }
+
+    /**
+     * Executes the measured operation once.
+     * 
+     * @return The result of the operation, consumed by the benchmark.
+     */
+    Object run() throws Exception;
+
+    /**
+     * Instantiates a workload implemented in the default package.
+     * 
+     * @param className The binary name of the workload class.
+     * @return The workload.
+     */
+    static Workload load(String className) {
+        try {
+            return (Workload) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Workload " + className + " cannot be loaded", e);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+import java.util.Random;
+
+/**
+ * Fills the empty fields of a board by backtracking, without recursion.
+ * The fields placed so far and the numbers still to be tried in each of them are kept on an explicit stack,
+ * so the search resumes from the current field after a dead end instead of scanning the board again.
+ * The next field is always the one with the fewest candidates left.
+ *
+ * Random searches occasionally run into a long series of dead ends. After a number of backtracks
+ * the attempt is abandoned and the search restarts from the original board with new random choices,
+ * each attempt being allowed twice as many backtracks as the one before. The search gives up
+ * once a deadline has passed, leaving the board as it was.
+ *
+ * An instance is not thread-safe, but it can be reused for any number of boards of the same complexity.
+ *
+ * @author László Tárkányi
+ */
+public class BacktrackingGenerator {
+    // Instance variables
+
+    private final int complexity;
+    private final int cellCount;
+    private final long initialBudget;
+    private final long timeoutNanos;
+
+    // search state, one entry per placed field
+    private final int[] stackCells;
+    private final int[] stackCandidates;
+    private final int[] emptyCells;
+
+    // statistics of the last call
+    private long placements;
+    private long backtracks;
+    private long restarts;
+    private long constraintChecks;
+
+    public static final long DEFAULT_BUDGET_PER_FIELD = 4;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10000;
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    // Constructors
+
+    public BacktrackingGenerator(int complexity) {
+        this(complexity, DEFAULT_BUDGET_PER_FIELD * complexity * complexity, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param complexity The length of one side of the board.
+     * @param backtrackBudget The number of backtracks of the first attempt before a restart.
+     * @param timeoutMillis The time after which the search gives up.
+     */
+    public BacktrackingGenerator(int complexity, long backtrackBudget, long timeoutMillis) {
+        this.complexity = complexity;
+        this.cellCount = complexity * complexity;
+        this.initialBudget = Math.max(1, backtrackBudget);
+        this.timeoutNanos = timeoutMillis * 1000000L;
+        this.stackCells = new int[this.cellCount];
+        this.stackCandidates = new int[this.cellCount];
+        this.emptyCells = new int[this.cellCount];
+    }
+
+    // Accessors
+
+    /**
+     * @return The number of numbers placed during the last call of generate.
+     */
+    public long getPlacements() {
+        return this.placements;
+    }
+
+    /**
+     * @return The number of dead ends met during the last call of generate.
+     */
+    public long getBacktracks() {
+        return this.backtracks;
+    }
+
+    /**
+     * @return The number of times the last call of generate started over.
+     */
+    public long getRestarts() {
+        return this.restarts;
+    }
+
+    /**
+     * @return The number of candidate lookups in the constraint bitmasks during the last call of generate.
+     */
+    public long getConstraintChecks() {
+        return this.constraintChecks;
+    }
+
+    // Class methods
+
+    /**
+     * Fills the empty fields of a board with a random, valid completion.
+     *
+     * @param b The board to be populated, left untouched if no completion was found in time.
+     * @param random The source of randomness for the numbers tried.
+     * @return The board has been fully populated or not.
+     */
+    public boolean generate(Board b, Random random) {
+        if (b.getComplexity() != this.complexity) {
+            throw new IllegalArgumentException("Board complexity " + b.getComplexity() + " does not match " + this.complexity);
+        }
+        long deadline = System.nanoTime() + this.timeoutNanos;
+        ConstraintState constraints = b.getConstraints();
+
+        int emptyCount = 0;
+        for (int i = 0; i < this.cellCount; i++) {
+            if (b.get(i) == 0) {
+                this.emptyCells[emptyCount++] = i;
+            }
+        }
+
+        long budget = this.initialBudget;
+        long backtracks = 0;
+        long iterations = 0;
+        int depth = 0;
+
+        // counted locally and kept for the caller once per call
+        long placements = 0;
+        long totalBacktracks = 0;
+        long restarts = 0;
+        long constraintChecks = 0;
+
+        try {
+            while (depth < emptyCount) {
+                if (++iterations % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                    clear(b, depth);
+                    return false;
+                }
+
+                // choose the empty field with the fewest candidates
+                int cell = -1;
+                int candidates = 0;
+                int fewest = Integer.MAX_VALUE;
+
+                for (int i = 0; i < emptyCount && fewest > 1; i++) {
+                    int c = this.emptyCells[i];
+                    if (b.get(c) == 0) {
+                        int mask = constraints.getCandidates(c);
+                        constraintChecks++;
+                        int count = Integer.bitCount(mask);
+                        if (count < fewest) {
+                            cell = c;
+                            candidates = mask;
+                            fewest = count;
+                        }
+                    }
+                }
+
+                if (candidates != 0) {
+                    this.stackCells[depth] = cell;
+                    this.stackCandidates[depth] = candidates;
+                    placeNext(b, depth, random);
+                    placements++;
+                    depth++;
+                    continue;
+                }
+
+                // dead end, go back to the last field with numbers left to try
+                if (++backtracks > budget) {
+                    clear(b, depth);
+                    depth = 0;
+                    totalBacktracks += backtracks;
+                    restarts++;
+                    backtracks = 0;
+                    budget *= 2;
+                    continue;
+                }
+                while (depth > 0 && this.stackCandidates[depth - 1] == 0) {
+                    depth--;
+                    b.set(this.stackCells[depth], 0);
+                }
+                if (depth == 0) {
+                    // every possibility has been tried, the original board cannot be completed
+                    return false;
+                }
+                b.set(this.stackCells[depth - 1], 0);
+                placeNext(b, depth - 1, random);
+                placements++;
+            }
+            return true;
+        } finally {
+            this.placements = placements;
+            this.backtracks = totalBacktracks + backtracks;
+            this.restarts = restarts;
+            this.constraintChecks = constraintChecks;
+        }
+    }
+
+    /**
+     * Places one of the numbers not yet tried in the field of a stack entry, picked uniformly at random.
+     */
+    private void placeNext(Board b, int depth, Random random) {
+        int candidates = this.stackCandidates[depth];
+        for (int skip = random.nextInt(Integer.bitCount(candidates)); skip > 0; skip--) {
+            candidates &= candidates - 1;
+        }
+        int num = Integer.numberOfTrailingZeros(candidates);
+        this.stackCandidates[depth] &= ~(1 << num);
+        b.set(this.stackCells[depth], num);
+    }
+
+    /**
+     * Empties the fields placed by the search, restoring the original board.
+     */
+    private void clear(Board b, int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            b.set(this.stackCells[i], 0);
+        }
+    }
+}
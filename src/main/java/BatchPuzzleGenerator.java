@@ -0,0 +1,133 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Generates and carves large batches of puzzles on a fork/join pool.
+ * Every worker uses its own source of randomness and its own boards,
+ * so the batch scales with the number of threads.
+ * 
+ * @author László Tárkányi
+ */
+public class BatchPuzzleGenerator {
+    // Instance variables
+
+    private final ForkJoinPool pool;
+    private final BoardFactory.Engine engine;
+
+    // Constructor
+
+    public BatchPuzzleGenerator(int threads, BoardFactory.Engine engine) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive: " + threads);
+        }
+        this.pool = new ForkJoinPool(threads);
+        this.engine = engine;
+    }
+
+    // Accessors
+
+    public int getThreads() {
+        return this.pool.getParallelism();
+    }
+
+    // Class methods
+
+    /**
+     * Generates a batch of puzzles and blocks until all of them are handed to the consumer.
+     * The consumer is called from the worker threads as soon as a puzzle is finished,
+     * but never by two threads at the same time, so it does not have to be thread-safe.
+     * 
+     * @param complexity The length of one side of the puzzles.
+     * @param difficulty The difficulty of the puzzles.
+     * @param count The number of puzzles to be generated.
+     * @param consumer Receives the finished puzzles in the order of completion.
+     */
+    public void generate(int complexity, Difficulty difficulty, int count, Consumer<PuzzlePair> consumer) {
+        generateTimed(complexity, difficulty, count, (pair, nanos) -> consumer.accept(pair));
+    }
+
+    /**
+     * Generates a batch of puzzles like generate, also handing over the time each puzzle took.
+     * 
+     * @param complexity The length of one side of the puzzles.
+     * @param difficulty The difficulty of the puzzles.
+     * @param count The number of puzzles to be generated.
+     * @param consumer Receives the finished puzzles and their generation times in nanoseconds.
+     */
+    public void generateTimed(int complexity, Difficulty difficulty, int count, ObjLongConsumer<PuzzlePair> consumer) {
+        ObjLongConsumer<PuzzlePair> serialConsumer = new ObjLongConsumer<PuzzlePair>() {
+            @Override
+            public synchronized void accept(PuzzlePair pair, long nanos) {
+                consumer.accept(pair, nanos);
+            }
+        };
+        this.pool.invoke(new BatchTask(complexity, difficulty, 0, count, serialConsumer));
+    }
+
+    /**
+     * Generates and carves a single puzzle on the calling thread.
+     * 
+     * @param complexity The length of one side of the puzzle.
+     * @param difficulty The difficulty of the puzzle.
+     * @return The puzzle and its solution.
+     */
+    public PuzzlePair generateOne(int complexity, Difficulty difficulty) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Board solution = new Board(complexity);
+
+        while (!BoardFactory.generateSolution(solution, complexity, this.engine, random)) {
+            solution = new Board(complexity);
+        }
+
+        Board puzzle = new Board(complexity);
+        puzzle.copyValues(solution);
+        puzzle.setPuzzleDifficulty(difficulty.getNumOfClues(complexity), difficulty.getHardestTechnique(), random);
+        return new PuzzlePair(solution, puzzle);
+    }
+
+    /**
+     * Stops the worker threads once the running batches are finished.
+     */
+    public void shutdown() {
+        this.pool.shutdown();
+    }
+
+    /**
+     * Splits a range of the batch in half until a single puzzle is left to generate.
+     */
+    private class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int complexity;
+        private final Difficulty difficulty;
+        private final int from;
+        private final int to;
+        private final ObjLongConsumer<PuzzlePair> consumer;
+
+        BatchTask(int complexity, Difficulty difficulty, int from, int to, ObjLongConsumer<PuzzlePair> consumer) {
+            this.complexity = complexity;
+            this.difficulty = difficulty;
+            this.from = from;
+            this.to = to;
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= 1) {
+                if (this.to > this.from) {
+                    long start = System.nanoTime();
+                    PuzzlePair pair = generateOne(this.complexity, this.difficulty);
+                    this.consumer.accept(pair, System.nanoTime() - start);
+                }
+            } else {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new BatchTask(this.complexity, this.difficulty, this.from, middle, this.consumer),
+                    new BatchTask(this.complexity, this.difficulty, middle, this.to, this.consumer));
+            }
+        }
+    }
+}
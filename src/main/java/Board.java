@@ -1,14 +1,26 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * A class that represents a sudoku game board.
+ * The fields are stored row by row in a single flat array and can be accessed by index,
+ * by row and column or through a Coordinate.
  * 
  * @author László Tárkányi
  */
 public class Board {
     // Instance variables
     
-    private int[][] fields;
+    private byte[] fields;
     private int complexity;
-    private final int DEFAULT_COMPLEXITY = 9;
+    private transient Geometry geometry;
+    private transient ConstraintState constraints;
+    private transient Board reference;
+    private transient int emptyCount;
+    private transient int mismatchCount;
+    private static final int DEFAULT_COMPLEXITY = 9;
 
     // Constructors
 
@@ -16,37 +28,151 @@ public class Board {
      * Default constructor builds a board with 9x9 fields
      */
     public Board() {
-        this.fields = new int[DEFAULT_COMPLEXITY][DEFAULT_COMPLEXITY];
-        this.complexity = DEFAULT_COMPLEXITY;
+        this(DEFAULT_COMPLEXITY);
     }
 
     public Board(int complexity) {
-        this.fields = new int[complexity][complexity];
+        this.fields = new byte[complexity * complexity];
         this.complexity = complexity;
+        this.geometry = Geometry.of(complexity);
+        this.emptyCount = this.fields.length;
     }
 
     // Accessors
 
+    /**
+     * Gets a copy of the fields as a matrix.
+     * 
+     * @return The values of the board, indexed by row and column.
+     */
     public int[][] getFields() {
-        return fields;
+        int[][] matrix = new int[this.complexity][this.complexity];
+
+        for (int i = 0; i < this.fields.length; i++) {
+            matrix[i / this.complexity][i % this.complexity] = this.fields[i];
+        }
+        return matrix;
+    }
+
+    public int get(int index) {
+        return this.fields[index];
+    }
+
+    public int get(int row, int column) {
+        return this.fields[row * this.complexity + column];
     }
 
     public int getValue(Coordinate c) {
-        return this.fields[c.getRow()][c.getColumn()];
+        return this.fields[c.getRow() * this.complexity + c.getColumn()];
+    }
+
+    public Geometry getGeometry() {
+        return this.geometry;
     }
 
     public int getComplexity() {
         return complexity;
     }
 
+    /**
+     * Gets the number of empty fields, kept up to date on every change.
+     * 
+     * @return The number of fields with the value 0.
+     */
+    public int getEmptyCount() {
+        return this.emptyCount;
+    }
+
+    /**
+     * Gets the number of fields that differ from the tracked solution, kept up to date on every change.
+     * 
+     * @return The number of differing fields, empty fields included, or -1 if no solution is tracked.
+     */
+    public int getMismatchCount() {
+        return this.reference != null ? this.mismatchCount : -1;
+    }
+
+    /**
+     * Gets the bitmasks of the numbers used in each row, column and sub-matrix.
+     * The state is built on first use and kept up to date by updateField.
+     *
+     * @return The constraint state of the board.
+     */
+    public ConstraintState getConstraints() {
+        if (this.constraints == null) {
+            this.constraints = new ConstraintState(this.complexity);
+
+            for (int i = 0; i < this.fields.length; i++) {
+                if (this.fields[i] != 0) {
+                    this.constraints.place(i, this.fields[i]);
+                }
+            }
+        }
+        return this.constraints;
+    }
+
     // Mutators
 
+    /**
+     * Overwrites the fields with the values of a matrix.
+     * 
+     * @param fields The values of the board, indexed by row and column.
+     */
     public void setFields(int[][] fields) {
-        this.fields = fields;
+        for (int i = 0; i < this.fields.length; i++) {
+            this.fields[i] = (byte) fields[i / this.complexity][i % this.complexity];
+        }
+        this.constraints = null;
+        recount();
+    }
+
+    /**
+     * Starts comparing the board to a solution on every change,
+     * so that whether the board is solved can be told without walking it.
+     * 
+     * @param solution The complete board to be compared to.
+     */
+    public void trackSolution(Board solution) {
+        this.reference = solution;
+        recount();
+    }
+
+    public void set(int index, int value) {
+        int previous = this.fields[index];
+        this.fields[index] = (byte) value;
+
+        // keep the counters in sync with the fields
+        if (previous == 0 && value != 0) {
+            this.emptyCount--;
+        } else if (previous != 0 && value == 0) {
+            this.emptyCount++;
+        }
+        if (this.reference != null) {
+            int expected = this.reference.fields[index];
+            if (previous == expected && value != expected) {
+                this.mismatchCount++;
+            } else if (previous != expected && value == expected) {
+                this.mismatchCount--;
+            }
+        }
+
+        // keep the constraint state in sync with the fields
+        if (this.constraints != null) {
+            if (previous != 0) {
+                this.constraints.clear(index, previous);
+            }
+            if (value != 0) {
+                this.constraints.place(index, value);
+            }
+        }
+    }
+
+    public void set(int row, int column, int value) {
+        this.set(row * this.complexity + column, value);
     }
 
     public void updateField(Coordinate c, int value) {
-        this.fields[c.getRow()][c.getColumn()] = value;
+        this.set(c.getRow() * this.complexity + c.getColumn(), value);
     }
 
     // Class Methods
@@ -57,25 +183,43 @@ public class Board {
      */
     public void popRandomValue() {
         int randomField = (int)((Math.random() * ((this.complexity * this.complexity)) - 1) + 1);
-        Coordinate randomCoordinate = new Coordinate((randomField / this.complexity), (randomField % this.complexity));
-        while (this.getValue(randomCoordinate) == 0) {
+        while (this.get(randomField) == 0) {
             randomField = (int)((Math.random() * ((this.complexity * this.complexity)) - 1) + 1);
-            randomCoordinate.setRow((randomField / this.complexity));
-            randomCoordinate.setColumn((randomField % this.complexity));
         }
-        this.updateField(randomCoordinate, 0);
-
+        this.set(randomField, 0);
     }
 
     /**
-     * Removes a given amount of values from the puzzle board.
+     * Removes values from the puzzle board until the given amount of clues is left,
+     * as long as the puzzle keeps a single solution.
      * 
-     * @param numOfCluesFromDifficulty the amount of numbers to be removed
+     * @param numOfCluesFromDifficulty the amount of numbers to be kept
      */
     public void setPuzzleDifficulty(int numOfCluesFromDifficulty) {
-        for (int i = 0; i < (this.getComplexity() * this.getComplexity()) - numOfCluesFromDifficulty; i++) {
-            this.popRandomValue();
-        }
+        setPuzzleDifficulty(numOfCluesFromDifficulty, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Removes values from the puzzle board until the given amount of clues is left,
+     * as long as the puzzle keeps a single solution.
+     * 
+     * @param numOfCluesFromDifficulty the amount of numbers to be kept
+     * @param random the source of randomness, should not be shared between threads
+     */
+    public void setPuzzleDifficulty(int numOfCluesFromDifficulty, Random random) {
+        new PuzzleCarver(this.complexity).carve(this, numOfCluesFromDifficulty, random);
+    }
+
+    /**
+     * Removes values from the puzzle board until the given amount of clues is left,
+     * as long as the puzzle keeps a single solution and needs no technique harder than the given one.
+     * 
+     * @param numOfCluesFromDifficulty the amount of numbers to be kept
+     * @param hardestTechnique the hardest technique the puzzle may need
+     * @param random the source of randomness, should not be shared between threads
+     */
+    public void setPuzzleDifficulty(int numOfCluesFromDifficulty, Technique hardestTechnique, Random random) {
+        new PuzzleCarver(this.complexity).carve(this, numOfCluesFromDifficulty, hardestTechnique, random);
     }
 
     /**
@@ -84,68 +228,56 @@ public class Board {
      * @param original the board object to be copied from
      */
     public void copyValues(Board original) {
-        for (int i = 0; i < complexity; i++) {
-            for (int j = 0; j < complexity; j++) {
-                Coordinate cursor = new Coordinate(i, j);
-                this.updateField(cursor, original.getValue(cursor));
+        System.arraycopy(original.fields, 0, this.fields, 0, this.fields.length);
+        this.constraints = null;
+        recount();
+    }
+
+    /**
+     * Counts the empty and the differing fields from scratch after a bulk change.
+     */
+    private void recount() {
+        this.emptyCount = 0;
+        this.mismatchCount = 0;
+
+        for (int i = 0; i < this.fields.length; i++) {
+            if (this.fields[i] == 0) {
+                this.emptyCount++;
+            }
+            if (this.reference != null && this.fields[i] != this.reference.fields[i]) {
+                this.mismatchCount++;
             }
         }
     }
 
     @Override
     public boolean equals(Object obj) {
-        if (obj.getClass() == this.getClass()) {
+        if (obj != null && obj.getClass() == this.getClass()) {
             Board o = (Board) obj;
-
-            for (int i = 0; i < this.complexity; i++) {
-                for (int j = 0; j < this.complexity; j++) {
-                    Coordinate cursor = new Coordinate(i, j);
-
-                    if (this.getValue(cursor) != o.getValue(cursor)) {
-                        return false;
-                    }
-                }
-            }
-            return true;
+            return this.complexity == o.complexity && Arrays.equals(this.fields, o.fields);
         } else {
             return false;
         }
     }
 
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.fields);
+    }
+
     /**
      * Prints the game board.
      */
     public void printBoard() {
-        for (int i = 0; i < complexity; i++) {
-            for (int j = 0; j < complexity; j++) {
-                if (complexity < 10) {
-                    if (fields[i][j] != 0) {
-                        System.out.print("[" + fields[i][j] + "]");
-                    } else {
-                        System.out.print("[ ]");
-                    }
-                } else {
-                    if (fields[i][j] != 0) {
-                        if (fields[i][j] < 10) {
-                            System.out.print("[ " + fields[i][j] + "]");
-                        } else {
-                            System.out.print("[" + fields[i][j] + "]");
-                        }
-                    } else {
-                        System.out.print("[  ]");
-                    }
-                    
-                }
-                
-                if (j % Math.sqrt(complexity) == Math.sqrt(complexity) - 1) {
-                    System.out.print(" ");
-                }
-            }
+        printBoard(System.out);
+    }
 
-            if (i % Math.sqrt(complexity) == Math.sqrt(complexity) - 1) {
-                System.out.println();
-            }
-            System.out.println();
-        }
+    /**
+     * Prints the game board on a terminal of its own.
+     * 
+     * @param out The display of the terminal.
+     */
+    public void printBoard(PrintStream out) {
+        new BoardRenderer(this.complexity).render(this, out);
     }
 }
\ No newline at end of file
@@ -1,7 +1,6 @@
-import java.util.Collections;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A class responsible for generating a complete board according to the constraints of
@@ -10,45 +9,110 @@ import java.util.stream.IntStream;
  * @author László Tárkányi
  */
 public class BoardFactory {
+    private static final LongAdder GENERATIONS = MetricsRegistry.getInstance().counter("generation.count");
+
+    /**
+     * The algorithms available for generating a complete board.
+     */
+    public enum Engine {
+        BACKTRACKING,
+        DANCING_LINKS,
+        SYMMETRY
+    }
+
+    /**
+     * Generates a complete board with the chosen algorithm.
+     *
+     * @param b The board of the game.
+     * @param complexity The length of one side of the puzzle.
+     * @param engine The algorithm used for the generation.
+     * @return A boolean value referring to whether the game board has been fully populated or not.
+     */
+    public static boolean generateSolution(Board b, int complexity, Engine engine) {
+        return generateSolution(b, complexity, engine, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Generates a complete board with the chosen algorithm and source of randomness.
+     * None of the algorithms keeps shared state, so boards can be generated on several threads at once.
+     * The latency of every call is recorded per complexity as "generation.latency", and the placements,
+     * backtracks and restarts the engine counted during the call as "generation.placements" and so on,
+     * and a GenerationEvent is committed if the flight recorder is enabled.
+     *
+     * @param b The board of the game.
+     * @param complexity The length of one side of the puzzle.
+     * @param engine The algorithm used for the generation.
+     * @param random The source of randomness, should not be shared between threads.
+     * @return A boolean value referring to whether the game board has been fully populated or not.
+     */
+    public static boolean generateSolution(Board b, int complexity, Engine engine, Random random) {
+        GenerationEvent event = new GenerationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean generated;
+        long placements;
+        long backtracks = 0;
+        long restarts = 0;
+        long constraintChecks = 0;
+
+        switch (engine) {
+            case DANCING_LINKS:
+                DancingLinks dancingLinks = new DancingLinks(complexity);
+                generated = dancingLinks.generate(b, random);
+                placements = dancingLinks.getPlacements();
+                backtracks = dancingLinks.getBacktracks();
+                break;
+
+            case SYMMETRY:
+                generated = new SymmetryGenerator(complexity).generate(b, random);
+                // the symmetry generator places every field once without searching
+                placements = complexity * complexity;
+                break;
+
+            default:
+                BacktrackingGenerator backtracking = new BacktrackingGenerator(complexity);
+                generated = backtracking.generate(b, random);
+                placements = backtracking.getPlacements();
+                backtracks = backtracking.getBacktracks();
+                restarts = backtracking.getRestarts();
+                constraintChecks = backtracking.getConstraintChecks();
+                break;
+        }
+
+        // the engines count into their own fields, the totals of the call are published once here
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        GENERATIONS.increment();
+        metrics.histogram("generation.latency", complexity).recordSince(start);
+        metrics.distribution("generation.placements", complexity).record(placements);
+        metrics.distribution("generation.backtracks", complexity).record(backtracks);
+        if (engine == Engine.BACKTRACKING) {
+            metrics.distribution("generation.restarts", complexity).record(restarts);
+            metrics.distribution("generation.constraintChecks", complexity).record(constraintChecks);
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.complexity = complexity;
+            event.engine = engine.name();
+            event.generated = generated;
+            event.placements = placements;
+            event.backtracks = backtracks;
+            event.restarts = restarts;
+            event.constraintChecks = constraintChecks;
+            event.commit();
+        }
+        return generated;
+    }
+
     /**
      * Source: https://lvngd.com/blog/generating-and-solving-sudoku-puzzles-python/
+     * The backtracking runs iteratively and restarts itself when it gets stuck, see BacktrackingGenerator.
      * 
      * @param b The board of the game.
      * @param complexity The length of one side of the puzzle.
      * @return A boolean value referring to whether the game board has been fully populated or not.
      */
     public static boolean generateSolution(Board b, int complexity) {
-        Validator validator = new Validator(complexity);
-        List <Integer> nums = IntStream.rangeClosed(1, complexity)
-            .boxed().collect(Collectors.toList());
-        Coordinate cursor = new Coordinate();
-        
-        // loop for the number of elements to be inserted
-        for (int i = 0; i < complexity * complexity; i++) {
-            cursor = new Coordinate((i / complexity), (i % complexity));
-
-            if (b.getValue(cursor) == 0) {
-                // shuffle the list of numbers randomly
-                Collections.shuffle(nums);
-
-                // loop through the array of numbers from 1 to complexity
-                for (int num : nums) {
-                    if (validator.isLocationValid(cursor, num, b)) {
-                        b.updateField(cursor, num);
-
-                        if (!validator.hasEmptySquare(b)) {
-                            return true;
-                        } else {
-                            if (generateSolution(b, complexity)) {
-                                return true;
-                            }
-                        }
-                    }
-                }
-                break;
-            }
-        }
-        b.updateField(cursor, 0);
-        return false;
+        return generateSolution(b, complexity, Engine.BACKTRACKING, ThreadLocalRandom.current());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,232 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Draws boards on a terminal. Every field has a fixed width, so the frame of a board is built once
+ * with the brackets, spaces and line breaks in place, and drawing a board only overwrites the numbers
+ * in it before writing the whole frame to the console at once.
+ *
+ * In ANSI mode the first frame is drawn at the top of the screen, which is then pinned by limiting
+ * the scrolling of the terminal to the lines below it. Every later frame only moves the cursor to
+ * the fields that changed since the previous frame and overwrites them, leaving the cursor where it was.
+ * The mode is enabled by the system property sudoku.ansi and needs a terminal that understands ANSI escapes.
+ *
+ * An instance is not thread-safe, it keeps the frame of one board on one terminal.
+ *
+ * @author László Tárkányi
+ */
+public class BoardRenderer {
+    // Instance variables
+
+    private final int complexity;
+    private final int cellWidth;
+    private final boolean ansi;
+    private final byte[] frame;
+    private final int[] cellOffsets;
+    private final int[] cellLines;
+    private final int[] cellColumns;
+    private final int frameLines;
+    private final int[] shown;
+    private boolean pinned;
+    private byte[] buffer;
+    private int length;
+
+    public static final String ANSI_PROPERTY = "sudoku.ansi";
+    private static final byte ESC = 27;
+
+    // Constructors
+
+    public BoardRenderer(int complexity) {
+        this(complexity, false);
+    }
+
+    /**
+     * @param complexity The length of one side of the boards drawn.
+     * @param ansi Only redraw the fields that changed, with ANSI escapes.
+     */
+    public BoardRenderer(int complexity, boolean ansi) {
+        this.complexity = complexity;
+        this.cellWidth = complexity < 10 ? 1 : 2;
+        this.ansi = ansi;
+
+        int cellCount = complexity * complexity;
+        int interval = (int)Math.sqrt(complexity);
+        this.cellOffsets = new int[cellCount];
+        this.cellLines = new int[cellCount];
+        this.cellColumns = new int[cellCount];
+
+        // the layout of the original console output: a space after every sub-matrix,
+        // an empty line after every band of sub-matrices
+        StringBuilder layout = new StringBuilder();
+        int line = 1;
+        for (int i = 0; i < complexity; i++) {
+            int lineStart = layout.length();
+            for (int j = 0; j < complexity; j++) {
+                layout.append('[');
+                this.cellOffsets[i * complexity + j] = layout.length();
+                this.cellLines[i * complexity + j] = line;
+                this.cellColumns[i * complexity + j] = layout.length() - lineStart + 1;
+                for (int k = 0; k < this.cellWidth; k++) {
+                    layout.append(' ');
+                }
+                layout.append(']');
+                if (j % interval == interval - 1) {
+                    layout.append(' ');
+                }
+            }
+            if (i % interval == interval - 1) {
+                layout.append('\n');
+                line++;
+            }
+            layout.append('\n');
+            line++;
+        }
+
+        this.frame = layout.toString().getBytes();
+        this.frameLines = line - 1;
+        this.shown = new int[cellCount];
+        this.buffer = new byte[this.frame.length + 32];
+    }
+
+    /**
+     * @return Whether ANSI mode was requested with the system property.
+     */
+    public static boolean isAnsiRequested() {
+        return Boolean.getBoolean(ANSI_PROPERTY);
+    }
+
+    // Class methods
+
+    /**
+     * Draws a board with a single write.
+     *
+     * @param b The board, of the complexity of the renderer.
+     * @param out The console.
+     */
+    public void render(Board b, PrintStream out) {
+        if (b.getComplexity() != this.complexity) {
+            throw new IllegalArgumentException("Board complexity " + b.getComplexity() + " does not match " + this.complexity);
+        }
+
+        if (!this.ansi) {
+            for (int i = 0; i < this.cellOffsets.length; i++) {
+                putValue(this.frame, this.cellOffsets[i], b.get(i));
+            }
+            out.write(this.frame, 0, this.frame.length);
+        } else {
+            this.length = 0;
+            if (!this.pinned) {
+                renderPinnedFrame(b);
+            } else {
+                renderChanges(b);
+            }
+            out.write(this.buffer, 0, this.length);
+        }
+        out.flush();
+    }
+
+    /**
+     * Lets the whole screen scroll again if the board was pinned in ANSI mode,
+     * so that the next frame is drawn in full.
+     *
+     * @param out The console.
+     */
+    public void release(PrintStream out) {
+        if (this.pinned) {
+            this.pinned = false;
+            this.length = 0;
+            // reset the scrolling region, which moves the cursor home, then go to the last line
+            appendEscape("[r");
+            appendCursorPosition(999, 1);
+            append((byte)'\n');
+            out.write(this.buffer, 0, this.length);
+            out.flush();
+        }
+    }
+
+    /**
+     * Clears the screen, draws the whole board at the top and limits scrolling to the lines below it.
+     */
+    private void renderPinnedFrame(Board b) {
+        appendEscape("[H");
+        appendEscape("[2J");
+        for (int i = 0; i < this.cellOffsets.length; i++) {
+            this.shown[i] = b.get(i);
+            putValue(this.frame, this.cellOffsets[i], this.shown[i]);
+        }
+        ensureCapacity(this.frame.length);
+        System.arraycopy(this.frame, 0, this.buffer, this.length, this.frame.length);
+        this.length += this.frame.length;
+
+        // setting the scrolling region moves the cursor home, so move it back below the board
+        appendEscape("[");
+        appendNumber(this.frameLines + 1);
+        append((byte)'r');
+        appendCursorPosition(this.frameLines + 1, 1);
+        this.pinned = true;
+    }
+
+    /**
+     * Overwrites the fields that changed since the previous frame, then puts the cursor back.
+     */
+    private void renderChanges(Board b) {
+        appendEscape("7");
+        for (int i = 0; i < this.shown.length; i++) {
+            int value = b.get(i);
+            if (value != this.shown[i]) {
+                this.shown[i] = value;
+                appendCursorPosition(this.cellLines[i], this.cellColumns[i]);
+                ensureCapacity(this.cellWidth);
+                putValue(this.buffer, this.length, value);
+                this.length += this.cellWidth;
+            }
+        }
+        appendEscape("8");
+    }
+
+    /**
+     * Writes the symbols of a number right-aligned in the width of a field, blank for an empty field.
+     */
+    private void putValue(byte[] destination, int offset, int value) {
+        if (this.cellWidth == 1) {
+            destination[offset] = value == 0 ? (byte)' ' : (byte)('0' + value);
+        } else {
+            destination[offset] = value < 10 ? (byte)' ' : (byte)('0' + value / 10);
+            destination[offset + 1] = value == 0 ? (byte)' ' : (byte)('0' + value % 10);
+        }
+    }
+
+    private void appendEscape(String sequence) {
+        append(ESC);
+        ensureCapacity(sequence.length());
+        for (int i = 0; i < sequence.length(); i++) {
+            this.buffer[this.length++] = (byte)sequence.charAt(i);
+        }
+    }
+
+    private void appendCursorPosition(int line, int column) {
+        appendEscape("[");
+        appendNumber(line);
+        append((byte)';');
+        appendNumber(column);
+        append((byte)'H');
+    }
+
+    private void appendNumber(int value) {
+        if (value >= 10) {
+            appendNumber(value / 10);
+        }
+        append((byte)('0' + value % 10));
+    }
+
+    private void append(byte value) {
+        ensureCapacity(1);
+        this.buffer[this.length++] = value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (this.length + extra > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.length + extra));
+        }
+    }
+}
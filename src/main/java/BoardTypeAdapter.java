@@ -0,0 +1,98 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Reads and writes boards in the JSON layout of the replay file,
+ * a matrix of fields and the complexity, independently of how Board stores its fields.
+ * 
+ * @author László Tárkányi
+ */
+public class BoardTypeAdapter extends TypeAdapter<Board> {
+    @Override
+    public void write(JsonWriter out, Board b) throws IOException {
+        if (b == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("fields");
+        out.beginArray();
+        for (int i = 0; i < b.getComplexity(); i++) {
+            out.beginArray();
+            for (int j = 0; j < b.getComplexity(); j++) {
+                out.value(b.get(i, j));
+            }
+            out.endArray();
+        }
+        out.endArray();
+        out.name("complexity").value(b.getComplexity());
+        out.endObject();
+    }
+
+    @Override
+    public Board read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        int[][] fields = null;
+        int complexity = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "fields":
+                    fields = readMatrix(in);
+                    break;
+
+                case "complexity":
+                    complexity = in.nextInt();
+                    break;
+
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+
+        if (fields == null) {
+            throw new IOException("Board without fields in the replay file");
+        }
+        Board b = new Board(complexity != 0 ? complexity : fields.length);
+        b.setFields(fields);
+        return b;
+    }
+
+    private static int[][] readMatrix(JsonReader in) throws IOException {
+        int[][] matrix = new int[0][];
+        int rows = 0;
+
+        in.beginArray();
+        while (in.hasNext()) {
+            int[] row = new int[0];
+            int columns = 0;
+
+            in.beginArray();
+            while (in.hasNext()) {
+                if (columns == row.length) {
+                    row = Arrays.copyOf(row, Math.max(9, columns * 2));
+                }
+                row[columns++] = in.nextInt();
+            }
+            in.endArray();
+
+            if (rows == matrix.length) {
+                matrix = Arrays.copyOf(matrix, Math.max(9, rows * 2));
+            }
+            matrix[rows++] = Arrays.copyOf(row, columns);
+        }
+        in.endArray();
+        return Arrays.copyOf(matrix, rows);
+    }
+}
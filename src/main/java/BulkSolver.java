@@ -0,0 +1,266 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solves puzzles given in the line format of PuzzleFormat, one by one or as whole files in parallel.
+ *
+ * Every puzzle is solved by a SolutionCounter looking for a second solution, so puzzles without a solution
+ * or with several solutions are reported instead of being solved. The search of a single puzzle is limited
+ * to a number of branches, so a hard or broken puzzle is reported as timed out instead of blocking the batch.
+ *
+ * Files are read in batches of lines that are solved on a fixed pool of threads. The results of the batches
+ * are written in the order of the input, with a bounded number of batches in flight, and the latencies
+ * are counted in a Histogram of fixed size, so the memory used does not depend on the size of the file.
+ *
+ * @author László Tárkányi
+ */
+public class BulkSolver {
+    /**
+     * The outcome of solving one puzzle.
+     */
+    public enum Status {
+        SOLVED,
+        UNSOLVABLE,
+        MULTIPLE,
+        INVALID,
+        TIMEOUT
+    }
+
+    // Instance variables
+
+    private final int threads;
+    private final long maxBranches;
+    private final ThreadLocal<SolutionCounter[]> counters;
+
+    public static final long DEFAULT_MAX_BRANCHES = 1_000_000;
+    private static final int BATCH_SIZE = 1024;
+    private static final int BATCHES_PER_THREAD = 4;
+
+    // Constructor
+
+    /**
+     * @param threads The number of threads solving the puzzles of a file.
+     * @param maxBranches The number of branches after which the search of a puzzle gives up.
+     */
+    public BulkSolver(int threads, long maxBranches) {
+        if (threads < 1 || maxBranches < 1) {
+            throw new IllegalArgumentException("The number of threads and branches must be positive");
+        }
+        this.threads = threads;
+        this.maxBranches = maxBranches;
+        this.counters = ThreadLocal.withInitial(() -> new SolutionCounter[PuzzleFormat.MAX_COMPLEXITY + 1]);
+    }
+
+    // Class methods
+
+    /**
+     * Solves a single puzzle on the calling thread.
+     *
+     * @param line The puzzle in the line format. Anything after a comma, like a solution, is ignored.
+     * @return The outcome and, if solved, the solution.
+     */
+    public Result solve(String line) {
+        int end = line.indexOf(',');
+        String puzzle = (end < 0 ? line : line.substring(0, end)).trim();
+        Board b;
+
+        try {
+            b = PuzzleFormat.parse(puzzle);
+        } catch (IllegalArgumentException e) {
+            return new Result(puzzle, Status.INVALID, null);
+        }
+
+        int complexity = b.getComplexity();
+        SolutionCounter[] cache = this.counters.get();
+        if (cache[complexity] == null) {
+            cache[complexity] = new SolutionCounter(complexity);
+        }
+        SolutionCounter counter = cache[complexity];
+
+        int count = counter.countSolutions(b, 2, this.maxBranches);
+        if (count != 1) {
+            return new Result(puzzle, count == 0 ? Status.UNSOLVABLE : count < 0 ? Status.TIMEOUT : Status.MULTIPLE, null);
+        }
+
+        int[] values = counter.getLastSolution();
+        for (int i = 0; i < values.length; i++) {
+            b.set(i, values[i]);
+        }
+        return new Result(puzzle, Status.SOLVED, b);
+    }
+
+    /**
+     * Solves every line of the input and writes one line per input line in the same order:
+     * the puzzle and its solution separated by a comma, or the puzzle and the name of the status
+     * if it was not solved. Empty lines are copied as they are.
+     *
+     * @param in The puzzles, one per line.
+     * @param out The destination of the results, it is not closed.
+     * @return The statistics of the run.
+     */
+    public Report solveAll(BufferedReader in, Writer out) throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(this.threads, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-solver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ArrayDeque<Future<Batch>> inFlight = new ArrayDeque<Future<Batch>>();
+        Report report = new Report();
+        long start = System.nanoTime();
+
+        try {
+            ArrayList<String> lines = new ArrayList<String>(BATCH_SIZE);
+            String line;
+
+            while ((line = in.readLine()) != null) {
+                lines.add(line);
+                if (lines.size() == BATCH_SIZE) {
+                    submit(workers, inFlight, lines);
+                    lines = new ArrayList<String>(BATCH_SIZE);
+
+                    if (inFlight.size() >= this.threads * BATCHES_PER_THREAD) {
+                        write(inFlight.poll(), out, report);
+                    }
+                }
+            }
+            if (!lines.isEmpty()) {
+                submit(workers, inFlight, lines);
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.poll(), out, report);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+
+        out.flush();
+        report.nanos = System.nanoTime() - start;
+        return report;
+    }
+
+    private void submit(ExecutorService workers, ArrayDeque<Future<Batch>> inFlight, ArrayList<String> lines) {
+        inFlight.add(workers.submit(() -> {
+            Batch batch = new Batch(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                if (lines.get(i).isBlank()) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                batch.results[i] = solve(lines.get(i));
+                batch.nanos[i] = System.nanoTime() - start;
+            }
+            return batch;
+        }));
+    }
+
+    private void write(Future<Batch> future, Writer out, Report report) throws IOException {
+        Batch batch;
+        try {
+            batch = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while solving", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Solving failed", e.getCause());
+        }
+
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < batch.results.length; i++) {
+            Result result = batch.results[i];
+            if (result != null) {
+                line.setLength(0);
+                line.append(result.getPuzzle()).append(',');
+                if (result.getStatus() == Status.SOLVED) {
+                    PuzzleFormat.append(result.getSolution(), line);
+                } else {
+                    line.append(result.getStatus());
+                }
+                out.append(line);
+                report.count(result.getStatus());
+                report.latencies.record(batch.nanos[i]);
+            }
+            out.append('\n');
+        }
+    }
+
+    /**
+     * The outcome of solving one puzzle.
+     */
+    public static class Result {
+        private final String puzzle;
+        private final Status status;
+        private final Board solution;
+
+        Result(String puzzle, Status status, Board solution) {
+            this.puzzle = puzzle;
+            this.status = status;
+            this.solution = solution;
+        }
+
+        public String getPuzzle() {
+            return this.puzzle;
+        }
+
+        public Status getStatus() {
+            return this.status;
+        }
+
+        /**
+         * @return The solved board, or null if the puzzle was not solved.
+         */
+        public Board getSolution() {
+            return this.solution;
+        }
+    }
+
+    /**
+     * The number of puzzles per status, the time a run took and the latency of the single puzzles.
+     */
+    public static class Report {
+        private final Map<Status, Integer> counts = new EnumMap<Status, Integer>(Status.class);
+        private final Histogram latencies = new Histogram();
+        private long nanos;
+
+        private void count(Status status) {
+            this.counts.merge(status, 1, Integer::sum);
+        }
+
+        public int getCount(Status status) {
+            return this.counts.getOrDefault(status, 0);
+        }
+
+        public long getTotal() {
+            return this.latencies.getCount();
+        }
+
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        public Histogram getLatencies() {
+            return this.latencies;
+        }
+    }
+
+    /**
+     * The results of a batch of lines, null for the empty lines.
+     */
+    private static class Batch {
+        private final Result[] results;
+        private final long[] nanos;
+
+        Batch(int size) {
+            this.results = new Result[size];
+            this.nanos = new long[size];
+        }
+    }
+}
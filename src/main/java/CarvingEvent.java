@@ -0,0 +1,40 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event covering the carving of one puzzle by PuzzleCarver.
+ *
+ * @author László Tárkányi
+ */
+@Name("sudoku.Carving")
+@Label("Puzzle Carving")
+@Category({"Sudoku", "Engine"})
+@Description("Removal of clues from a complete board")
+public class CarvingEvent extends Event {
+    @Label("Complexity")
+    int complexity;
+
+    @Label("Target Clues")
+    int targetClues;
+
+    @Label("Hardest Technique")
+    String hardestTechnique;
+
+    @Label("Grade")
+    @Description("Hardest technique the carved puzzle needs, if it was carved for one")
+    String grade;
+
+    @Label("Passes")
+    @Description("Visits of the fields, started over while the grade was below the target")
+    int passes;
+
+    @Label("Attempts")
+    @Description("Clues tried for removal")
+    int attempts;
+
+    @Label("Clues Removed")
+    int cluesRemoved;
+}
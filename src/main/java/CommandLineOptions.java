@@ -0,0 +1,154 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The options of a headless command, given as "--name value" pairs after the name of the command.
+ *
+ * @author László Tárkányi
+ */
+public class CommandLineOptions {
+    // Instance variables
+
+    private final Map<String, String> values;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Constructor
+
+    /**
+     * @param args The arguments of the program, the first one being the name of the command.
+     * @throws IllegalArgumentException If an argument is not an option or an option has no value.
+     */
+    public CommandLineOptions(String[] args) {
+        this.values = new HashMap<String, String>();
+
+        for (int i = 1; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --option value at " + args[i]);
+            }
+            this.values.put(args[i].substring(2), args[i + 1]);
+        }
+    }
+
+    // Accessors
+
+    public String getString(String name, String defaultValue) {
+        return this.values.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * @throws IllegalArgumentException If the value is not a number.
+     */
+    public int getInt(String name, int defaultValue) {
+        String value = this.values.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " must be a number: " + value);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException If the value is not a constant of the enum, in any case.
+     */
+    public <E extends Enum<E>> E getEnum(String name, Class<E> type, E defaultValue) {
+        String value = this.values.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(type, value.toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown --" + name + ": " + value);
+        }
+    }
+
+    /**
+     * Reads a comma-separated list of numbers, such as "9,16".
+     *
+     * @throws IllegalArgumentException If a value is not a number.
+     */
+    public List<Integer> getIntList(String name, int defaultValue) {
+        String value = this.values.get(name);
+        ArrayList<Integer> list = new ArrayList<Integer>();
+        if (value == null) {
+            list.add(defaultValue);
+            return list;
+        }
+        for (String item : value.split(",")) {
+            try {
+                list.add(Integer.parseInt(item.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("--" + name + " must be a list of numbers: " + value);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Reads a comma-separated list of enum constants, such as "easy,expert".
+     *
+     * @throws IllegalArgumentException If a value is not a constant of the enum, in any case.
+     */
+    public <E extends Enum<E>> List<E> getEnumList(String name, Class<E> type, E defaultValue) {
+        String value = this.values.get(name);
+        ArrayList<E> list = new ArrayList<E>();
+        if (value == null) {
+            list.add(defaultValue);
+            return list;
+        }
+        for (String item : value.split(",")) {
+            try {
+                list.add(Enum.valueOf(type, item.trim().toUpperCase().replace('-', '_')));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown --" + name + ": " + item);
+            }
+        }
+        return list;
+    }
+
+    // Class methods
+
+    /**
+     * Opens the input file of a command.
+     *
+     * @param path The location of the file, or - for the standard input.
+     */
+    public static BufferedReader openReader(String path) throws IOException {
+        if (path.equals("-")) {
+            return new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII), BUFFER_SIZE);
+        }
+        return new BufferedReader(new InputStreamReader(Files.newInputStream(Paths.get(path)), StandardCharsets.US_ASCII), BUFFER_SIZE);
+    }
+
+    /**
+     * Opens the output file of a command.
+     *
+     * @param path The location of the file, or - for the standard output, which is only flushed when the writer is closed.
+     */
+    public static Writer openWriter(String path) throws IOException {
+        if (path.equals("-")) {
+            return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII), BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+        }
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(Paths.get(path)), StandardCharsets.US_ASCII), BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Keeps track of the numbers already used in every row, column and sub-matrix
+ * of a board as bitmasks, so that a placement check does not have to rescan the board.
+ * Bit n of a mask is set when the number n is present in that unit.
+ *
+ * @author László Tárkányi
+ */
+public class ConstraintState {
+    // Instance variables
+
+    private final Geometry geometry;
+    private final int fullMask;
+    private final int[] rowMasks;
+    private final int[] columnMasks;
+    private final int[] boxMasks;
+
+    // Constructor
+
+    public ConstraintState(int complexity) {
+        this.geometry = Geometry.of(complexity);
+        this.fullMask = ((1 << (complexity + 1)) - 1) & ~1;
+        this.rowMasks = new int[complexity];
+        this.columnMasks = new int[complexity];
+        this.boxMasks = new int[complexity];
+    }
+
+    // Accessors
+
+    public int getComplexity() {
+        return this.geometry.getComplexity();
+    }
+
+    // Class methods
+
+    /**
+     * Calculates which sub-matrix a location belongs to.
+     * Sub-matrices are numbered from left to right, top to bottom.
+     *
+     * @param row The row of the location.
+     * @param column The column of the location.
+     * @return The index of the sub-matrix.
+     */
+    public int boxIndex(int row, int column) {
+        return this.geometry.boxOf(this.geometry.index(row, column));
+    }
+
+    /**
+     * Marks a number as used in the row, column and sub-matrix of a field.
+     *
+     * @param index The index of the field.
+     * @param value The number placed into the field.
+     */
+    public void place(int index, int value) {
+        int bit = 1 << value;
+        this.rowMasks[this.geometry.rowOf(index)] |= bit;
+        this.columnMasks[this.geometry.columnOf(index)] |= bit;
+        this.boxMasks[this.geometry.boxOf(index)] |= bit;
+    }
+
+    /**
+     * Marks a number as unused in the row, column and sub-matrix of a field.
+     *
+     * @param index The index of the field.
+     * @param value The number removed from the field.
+     */
+    public void clear(int index, int value) {
+        int bit = ~(1 << value);
+        this.rowMasks[this.geometry.rowOf(index)] &= bit;
+        this.columnMasks[this.geometry.columnOf(index)] &= bit;
+        this.boxMasks[this.geometry.boxOf(index)] &= bit;
+    }
+
+    /**
+     * Checks whether a number can be placed into a location without breaking the rules of sudoku.
+     *
+     * @param row The row of the location.
+     * @param column The column of the location.
+     * @param value The number to be inserted.
+     * @return The number can be inserted into the given location or not.
+     */
+    public boolean isAllowed(int row, int column, int value) {
+        return (usedMask(this.geometry.index(row, column)) & (1 << value)) == 0;
+    }
+
+    /**
+     * Collects the numbers that can still be placed into a field.
+     *
+     * @param index The index of the field.
+     * @return A bitmask where bit n is set if the number n is a candidate.
+     */
+    public int getCandidates(int index) {
+        return this.fullMask & ~usedMask(index);
+    }
+
+    /**
+     * Collects the numbers that can still be placed into a location.
+     *
+     * @param row The row of the location.
+     * @param column The column of the location.
+     * @return A bitmask where bit n is set if the number n is a candidate.
+     */
+    public int getCandidates(int row, int column) {
+        return getCandidates(this.geometry.index(row, column));
+    }
+
+    private int usedMask(int index) {
+        return this.rowMasks[this.geometry.rowOf(index)] | this.columnMasks[this.geometry.columnOf(index)] | this.boxMasks[this.geometry.boxOf(index)];
+    }
+}
@@ -0,0 +1,353 @@
+import java.util.Random;
+
+/**
+ * Solves and generates sudoku boards with Knuth's Algorithm X on a Dancing Links matrix.
+ * The sudoku of any perfect square complexity is modelled as an exact cover problem:
+ * every candidate (row, column, number) is a matrix row that covers one cell constraint,
+ * one row-number, one column-number and one sub-matrix-number constraint.
+ * Source: https://arxiv.org/abs/cs/0011047
+ *
+ * An instance is not thread-safe, but it can be reused for any number of boards
+ * of the same complexity since every search restores the matrix before returning.
+ *
+ * @author László Tárkányi
+ */
+public class DancingLinks {
+    // Instance variables
+
+    private final int complexity;
+    private final int interval;
+    private final int cellCount;
+    private final int columnCount;
+
+    // node links, index 0 is the root and 1..columnCount are the column headers
+    private final int[] left;
+    private final int[] right;
+    private final int[] up;
+    private final int[] down;
+    private final int[] column;
+    private final int[] candidate;
+    private final int[] size;
+    private final int[] candidateNode;
+
+    // search state
+    private final int[] chosen;
+    private final int[] clueNodes;
+    private final int[][] rowBuffers;
+    private final int[] result;
+    private Random random;
+    private int solutionLimit;
+    private int solutionCount;
+    private long placements;
+    private long backtracks;
+
+    // Constructor
+
+    public DancingLinks(int complexity) {
+        this.complexity = complexity;
+        this.interval = (int)Math.sqrt(complexity);
+        this.cellCount = complexity * complexity;
+        this.columnCount = 4 * this.cellCount;
+
+        int candidateCount = this.cellCount * complexity;
+        int nodeCount = 1 + this.columnCount + 4 * candidateCount;
+        this.left = new int[nodeCount];
+        this.right = new int[nodeCount];
+        this.up = new int[nodeCount];
+        this.down = new int[nodeCount];
+        this.column = new int[nodeCount];
+        this.candidate = new int[nodeCount];
+        this.size = new int[this.columnCount + 1];
+        this.candidateNode = new int[candidateCount];
+
+        this.chosen = new int[this.cellCount];
+        this.clueNodes = new int[this.cellCount];
+        this.rowBuffers = new int[this.cellCount][complexity];
+        this.result = new int[this.cellCount];
+
+        buildMatrix();
+    }
+
+    // Accessors
+
+    /**
+     * @return The number of candidates selected during the last call of generate.
+     */
+    public long getPlacements() {
+        return this.placements;
+    }
+
+    /**
+     * @return The number of selected candidates that led to a dead end during the last call of generate.
+     */
+    public long getBacktracks() {
+        return this.backtracks;
+    }
+
+    // Class methods
+
+    /**
+     * Fills an empty board with a random, fully valid grid.
+     *
+     * @param b The board to be populated.
+     * @param random The source of randomness for the order of the candidates.
+     * @return The board has been fully populated or not.
+     */
+    public boolean generate(Board b, Random random) {
+        this.placements = 0;
+        this.backtracks = 0;
+        return solve(b, random);
+    }
+
+    /**
+     * Fills the empty fields of a partial board with the first solution found.
+     *
+     * @param b The board to be solved, it is left untouched if there is no solution.
+     * @return The board has been solved or not.
+     */
+    public boolean solve(Board b) {
+        return solve(b, null);
+    }
+
+    /**
+     * Counts the solutions of a partial board, stopping as soon as the limit is reached.
+     *
+     * @param b The partial board, it is not modified.
+     * @param limit The number of solutions after which the search stops.
+     * @return The number of solutions found, at most the limit.
+     */
+    public int countSolutions(Board b, int limit) {
+        return search(b, null, limit);
+    }
+
+    private boolean solve(Board b, Random random) {
+        if (search(b, random, 1) == 0) {
+            return false;
+        }
+
+        for (int i = 0; i < this.cellCount; i++) {
+            b.set(i, this.result[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Selects the clues of the board in the matrix and runs Algorithm X on the rest.
+     *
+     * @return The number of solutions found, at most the limit.
+     */
+    private int search(Board b, Random random, int limit) {
+        if (b.getComplexity() != this.complexity) {
+            throw new IllegalArgumentException("Board complexity " + b.getComplexity() + " does not match " + this.complexity);
+        }
+        this.random = random;
+        this.solutionLimit = limit;
+        this.solutionCount = 0;
+
+        // select the rows of the clues, a clue conflicting with an earlier one means no solution
+        int clueCount = 0;
+        boolean conflict = false;
+
+        for (int i = 0; i < this.cellCount && !conflict; i++) {
+            int value = b.get(i);
+            this.result[i] = value;
+
+            if (value != 0) {
+                int node = this.candidateNode[i * this.complexity + value - 1];
+
+                if (isRowAvailable(node)) {
+                    selectRow(node);
+                    this.clueNodes[clueCount++] = node;
+                } else {
+                    conflict = true;
+                }
+            }
+        }
+
+        if (!conflict) {
+            search(0);
+        }
+
+        // restore the matrix in reverse order
+        for (int i = clueCount - 1; i >= 0; i--) {
+            deselectRow(this.clueNodes[i]);
+        }
+        this.random = null;
+        return this.solutionCount;
+    }
+
+    /**
+     * The recursive step of Algorithm X.
+     *
+     * @param depth The number of rows chosen so far.
+     * @return The solution limit has been reached or not.
+     */
+    private boolean search(int depth) {
+        if (this.right[0] == 0) {
+            if (this.solutionCount == 0) {
+                for (int i = 0; i < depth; i++) {
+                    int chosenCandidate = this.candidate[this.chosen[i]];
+                    this.result[chosenCandidate / this.complexity] = chosenCandidate % this.complexity + 1;
+                }
+            }
+            this.solutionCount++;
+            return this.solutionCount >= this.solutionLimit;
+        }
+
+        // choose the column with the fewest remaining rows
+        int best = this.right[0];
+        for (int c = this.right[best]; c != 0 && this.size[best] > 1; c = this.right[c]) {
+            if (this.size[c] < this.size[best]) {
+                best = c;
+            }
+        }
+        if (this.size[best] == 0) {
+            return false;
+        }
+
+        // collect the rows of the column, shuffled when generating
+        int[] rows = this.rowBuffers[depth];
+        int rowCount = 0;
+        for (int node = this.down[best]; node != best; node = this.down[node]) {
+            rows[rowCount++] = node;
+        }
+        if (this.random != null) {
+            for (int i = rowCount - 1; i > 0; i--) {
+                int j = this.random.nextInt(i + 1);
+                int temp = rows[i];
+                rows[i] = rows[j];
+                rows[j] = temp;
+            }
+        }
+
+        cover(best);
+        boolean done = false;
+
+        for (int i = 0; i < rowCount && !done; i++) {
+            int node = rows[i];
+            this.chosen[depth] = node;
+
+            for (int j = this.right[node]; j != node; j = this.right[j]) {
+                cover(this.column[j]);
+            }
+            this.placements++;
+            done = search(depth + 1);
+            for (int j = this.left[node]; j != node; j = this.left[j]) {
+                uncover(this.column[j]);
+            }
+            if (!done) {
+                this.backtracks++;
+            }
+        }
+        uncover(best);
+        return done;
+    }
+
+    /**
+     * Checks that none of the columns of a row have been covered by a previous clue.
+     */
+    private boolean isRowAvailable(int node) {
+        int j = node;
+        do {
+            int c = this.column[j];
+            if (this.left[this.right[c]] != c || this.right[this.left[c]] != c) {
+                return false;
+            }
+            j = this.right[j];
+        } while (j != node);
+        return true;
+    }
+
+    private void selectRow(int node) {
+        int j = node;
+        do {
+            cover(this.column[j]);
+            j = this.right[j];
+        } while (j != node);
+    }
+
+    private void deselectRow(int node) {
+        int j = this.left[node];
+        do {
+            uncover(this.column[j]);
+            j = this.left[j];
+        } while (j != this.left[node]);
+    }
+
+    private void cover(int c) {
+        this.right[this.left[c]] = this.right[c];
+        this.left[this.right[c]] = this.left[c];
+
+        for (int i = this.down[c]; i != c; i = this.down[i]) {
+            for (int j = this.right[i]; j != i; j = this.right[j]) {
+                this.down[this.up[j]] = this.down[j];
+                this.up[this.down[j]] = this.up[j];
+                this.size[this.column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int c) {
+        for (int i = this.up[c]; i != c; i = this.up[i]) {
+            for (int j = this.left[i]; j != i; j = this.left[j]) {
+                this.size[this.column[j]]++;
+                this.down[this.up[j]] = j;
+                this.up[this.down[j]] = j;
+            }
+        }
+        this.right[this.left[c]] = c;
+        this.left[this.right[c]] = c;
+    }
+
+    /**
+     * Links the root, the column headers and one row of four nodes for every candidate.
+     */
+    private void buildMatrix() {
+        // circular list of the root and the column headers
+        for (int c = 0; c <= this.columnCount; c++) {
+            this.left[c] = c == 0 ? this.columnCount : c - 1;
+            this.right[c] = c == this.columnCount ? 0 : c + 1;
+            this.up[c] = c;
+            this.down[c] = c;
+            this.column[c] = c;
+        }
+
+        int node = this.columnCount + 1;
+        int[] columns = new int[4];
+
+        for (int row = 0; row < this.complexity; row++) {
+            for (int col = 0; col < this.complexity; col++) {
+                int box = (row / this.interval) * this.interval + (col / this.interval);
+
+                for (int digit = 0; digit < this.complexity; digit++) {
+                    int id = (row * this.complexity + col) * this.complexity + digit;
+
+                    // cell, row-number, column-number and sub-matrix-number constraints
+                    columns[0] = 1 + row * this.complexity + col;
+                    columns[1] = 1 + this.cellCount + row * this.complexity + digit;
+                    columns[2] = 1 + 2 * this.cellCount + col * this.complexity + digit;
+                    columns[3] = 1 + 3 * this.cellCount + box * this.complexity + digit;
+
+                    this.candidateNode[id] = node;
+                    for (int k = 0; k < 4; k++) {
+                        int c = columns[k];
+                        this.column[node] = c;
+                        this.candidate[node] = id;
+
+                        // append to the bottom of the column
+                        this.up[node] = this.up[c];
+                        this.down[node] = c;
+                        this.down[this.up[c]] = node;
+                        this.up[c] = node;
+                        this.size[c]++;
+
+                        // link into the row
+                        this.left[node] = k == 0 ? node + 3 : node - 1;
+                        this.right[node] = k == 3 ? node - 3 : node + 1;
+                        node++;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * The difficulty levels of a puzzle, defined by the share of the fields kept as clues
+ * and the hardest technique a puzzle of the level may need.
+ * 
+ * @author László Tárkányi
+ */
+public enum Difficulty {
+    EASY (0.65, Technique.HIDDEN_SINGLE),
+    INTERMEDIATE (0.5, Technique.POINTING),
+    EXPERT (0.22, Technique.X_WING),
+    GAMER (0, Technique.GUESSING);
+
+    private final double percentage;
+    private final Technique hardestTechnique;
+
+    Difficulty (double percentage, Technique hardestTechnique) {
+        this.percentage = percentage;
+        this.hardestTechnique = hardestTechnique;
+    }
+
+    public double getPercentage() {
+        return this.percentage;
+    }
+
+    public Technique getHardestTechnique() {
+        return this.hardestTechnique;
+    }
+
+    /**
+     * Calculates how many clues a puzzle of this difficulty should keep.
+     * 
+     * @param complexity The length of one side of the puzzle.
+     * @return The number of clues.
+     */
+    public int getNumOfClues(int complexity) {
+        return (int)((complexity * complexity) * this.percentage);
+    }
+}
@@ -1,6 +1,5 @@
 import java.util.ArrayDeque;
 import java.util.Deque;
-import java.util.Scanner;
 import java.util.Stack;
 
 /**
@@ -13,23 +12,34 @@ public class Game {
 
     private Board solution;
     private Board gameBoard;
+    private final Board initialBoard;
+    private final Validator validator;
     private Deque<Step> steps;
     private Stack<Step> undoStack;
     private int mistakesCount;
+    private final BoardRenderer renderer;
     private static final int MAX_MISTAKES = 3;
     private final String[] GAME_ACTIONS = {"\n[row,column,value] Enter your next step", "[u] Undo", "[r] Redo", "[q] Or quit to main menu, progress will not be saved\n"};
     private final static int ASCII_LOWER_BOUNDARY = 48; // 0
     private final static int ASCII_HIGHER_BOUNDARY = 57; // 9
     private final static int ASCII_COMMA_CODE = 44; // ,
+    private final static Histogram MOVE_LATENCY = MetricsRegistry.getInstance().histogram("game.move.latency");
+    private final static Histogram UNDO_LATENCY = MetricsRegistry.getInstance().histogram("game.undo.latency");
+    private final static Histogram REDO_LATENCY = MetricsRegistry.getInstance().histogram("game.redo.latency");
 
     // Constructor
 
     public Game(Board solution, Board gameBoard) {
         this.solution = solution;
         this.gameBoard = gameBoard;
+        this.gameBoard.trackSolution(solution);
+        this.initialBoard = new Board(gameBoard.getComplexity());
+        this.initialBoard.copyValues(gameBoard);
+        this.validator = Validator.of(gameBoard.getComplexity());
         this.steps = new ArrayDeque<Step>();
         this.undoStack = new Stack<Step>();
         this.mistakesCount = 0;
+        this.renderer = new BoardRenderer(gameBoard.getComplexity(), BoardRenderer.isAnsiRequested());
     }
 
     // Accessors
@@ -46,6 +56,10 @@ public class Game {
         return this.steps;
     }
 
+    public Board getInitialBoard() {
+        return this.initialBoard;
+    }
+
     public int getMistakesCount() {
         return this.mistakesCount;
     }
@@ -55,32 +69,49 @@ public class Game {
     /**
      * Leads the player through a game of sudoku, step by step.
      * 
-     * @param scanner The input device of the terminal.
+     * @param terminal The terminal of the player.
+     */
+    public void play(Terminal terminal) {
+        try {
+            playUntilOver(terminal);
+        } finally {
+            this.renderer.release(terminal.getOut());
+        }
+    }
+
+    /**
+     * Reads and executes the actions of the player until the game is over or the player quits.
+     * 
+     * @param terminal The terminal of the player.
      */
-    public void play(Scanner scanner) {
-        while (!isGameOver()) {
-            printActions();
+    private void playUntilOver(Terminal terminal) {
+        while (!isGameOver(terminal)) {
+            printActions(terminal);
             boolean invalidInput = true;
 
             while(invalidInput) {
-                String stepInput = scanner.next();
+                String stepInput = terminal.next();
 
                 switch (stepInput) {
                     case "u":
                         if (!this.steps.isEmpty()) {
                             invalidInput = false;
+                            long start = System.nanoTime();
                             this.chaChaSlide(true);
+                            UNDO_LATENCY.recordSince(start);
                         } else {
-                            System.out.println("Undo not possible yet, try adding numbers first.");
+                            terminal.println("Undo not possible yet, try adding numbers first.");
                         }
                         break;
 
                     case "r":
                         if (!this.undoStack.isEmpty()) {
                             invalidInput = false;
+                            long start = System.nanoTime();
                             this.chaChaSlide(false);
+                            REDO_LATENCY.recordSince(start);
                         } else {
-                            System.out.println("Redo not possible yet, try undoing steps first.");
+                            terminal.println("Redo not possible yet, try undoing steps first.");
                         }
                         break;
                     
@@ -106,70 +137,88 @@ public class Game {
                         if (charCount == stepInput.length() && commaCount == 2) {
                             String[] split = stepInput.split(",");
                             invalidInput = false;
-                            executeStep(split);
+                            long start = System.nanoTime();
+                            executeStep(split, terminal);
+                            MOVE_LATENCY.recordSince(start);
                         } else {
-                            System.out.println("Invalid input, try again.");
+                            terminal.println("Invalid input, try again.");
                         }
                         break;
                 }
             }
         }
-        ReplayManagerSingleton.getInstance().saveReplayToFile(this.steps);
+        ReplayManagerSingleton.getInstance().saveReplayToFile(this.initialBoard, this.steps);
     }
 
     /**
      * Prints the board in its current state and the options of the player.
+     * 
+     * @param terminal The terminal of the player.
      */
-    private void printActions() {
-        System.out.println();
-        this.gameBoard.printBoard();
-        System.out.println("Mistakes: " + this.mistakesCount + "/" + MAX_MISTAKES);
-        System.out.println(GAME_ACTIONS[0]);
+    private void printActions(Terminal terminal) {
+        terminal.println();
+        this.renderer.render(this.gameBoard, terminal.getOut());
+        terminal.println("Mistakes: " + this.mistakesCount + "/" + MAX_MISTAKES);
+        terminal.println(GAME_ACTIONS[0]);
         if (!this.steps.isEmpty()) {
-            System.out.println(GAME_ACTIONS[1]);
+            terminal.println(GAME_ACTIONS[1]);
         }
         if (!this.undoStack.isEmpty()) {
-            System.out.println(GAME_ACTIONS[2]);
+            terminal.println(GAME_ACTIONS[2]);
         }
-        System.out.println(GAME_ACTIONS[3]);
+        terminal.println(GAME_ACTIONS[3]);
     }
 
     /**
      * Modifies the board according to the player's choice of coordinates and 
      * 
      * @param parsedInput The handled input of the player.
+     * @param terminal The terminal of the player.
      */
-    private void executeStep(String[] parsedInput) {
+    private void executeStep(String[] parsedInput, Terminal terminal) {
+        MoveEvent event = new MoveEvent();
+        event.begin();
         int inputRow = Integer.parseInt(parsedInput[0]);
         int inputColumn = Integer.parseInt(parsedInput[1]);
         int inputValue = Integer.parseInt(parsedInput[2]);
+        Step step = null;
 
         // validate the input
         if (inputRow <= this.gameBoard.getComplexity() && inputColumn <= this.gameBoard.getComplexity() && inputValue <= this.gameBoard.getComplexity() && inputRow > 0 && inputColumn > 0 && inputValue > 0) {
             Coordinate inputCoordinate = new Coordinate(inputRow - 1, inputColumn - 1);
 
             // check whether the selected field is empty or not
-            if (gameBoard.getValue(inputCoordinate) == 0) {
-                // create snapshot and initialise new step
-                Board snapShot = new Board(this.gameBoard.getComplexity());
-                snapShot.copyValues(this.gameBoard);
-                Step step = new Step(snapShot, inputCoordinate, inputValue);
-                this.steps.add(step);
+            int previousValue = gameBoard.getValue(inputCoordinate);
+            if (previousValue == 0) {
                 this.undoStack.clear();
 
-                // check the player's value against the solution
-                if (solution.getValue(inputCoordinate) == inputValue) {
+                // check the player's value against the rules and the solution and record the change as a new step
+                if (this.validator.isLocationValid(inputCoordinate, inputValue, this.gameBoard) && solution.getValue(inputCoordinate) == inputValue) {
                     this.gameBoard.updateField(inputCoordinate, inputValue);
-                    System.out.println("Successful step.\n");
+                    step = new Step(inputCoordinate, inputValue, previousValue, inputValue);
+                    terminal.println("Successful step.\n");
                 } else {
                     this.mistakesCount++;
-                    System.out.println("Gah! Mistake!\n");
+                    step = new Step(inputCoordinate, inputValue, previousValue, previousValue);
+                    terminal.println("Gah! Mistake!\n");
                 }
+                this.steps.add(step);
             } else {
-                System.out.println("Field already filled, try again.");
+                terminal.println("Field already filled, try again.");
             }
         } else {
-            System.out.println("Invalid value, try again.");
+            terminal.println("Invalid value, try again.");
+        }
+
+        // rejected input is not a move
+        event.end();
+        if (step != null && event.shouldCommit()) {
+            event.action = "move";
+            event.row = inputRow;
+            event.column = inputColumn;
+            event.value = inputValue;
+            event.mistake = step.isMistake();
+            event.commit();
         }
     }
 
@@ -179,49 +228,61 @@ public class Game {
      * @param isUndo Is the chosen action an undo or a redo?
      */
     private void chaChaSlide(boolean isUndo) {
-        Board snapShot = new Board(this.gameBoard.getComplexity());
-        snapShot.copyValues(this.gameBoard);
-        Step blankStep;
-        Step current;
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        Step step;
 
         if (isUndo) {
-            // undo last step
-            blankStep = this.steps.removeLast();
-            current = new Step(snapShot, blankStep.getInputCoordinate(), blankStep.getInputValue());
-            this.undoStack.push(current);
+            // undo last step by restoring the previous value of its field
+            step = this.steps.removeLast();
+            this.undoStack.push(step);
+            this.gameBoard.updateField(step.getInputCoordinate(), step.getPreviousValue());
         } else {
-            // redo last undone step
-            blankStep = this.undoStack.pop();
-            current = new Step(snapShot, blankStep.getInputCoordinate(), blankStep.getInputValue());
-            this.steps.addLast(current);
+            // redo last undone step by applying its new value again
+            step = this.undoStack.pop();
+            this.steps.addLast(step);
+            this.gameBoard.updateField(step.getInputCoordinate(), step.getNewValue());
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.action = isUndo ? "undo" : "redo";
+            event.row = step.getInputCoordinate().getRow() + 1;
+            event.column = step.getInputCoordinate().getColumn() + 1;
+            event.value = step.getInputValue();
+            event.mistake = step.getNewValue() == step.getPreviousValue();
+            event.commit();
         }
-        this.gameBoard.copyValues(blankStep.getBoardSnapshot());
     }
 
     /**
      * Checks whether the game had met its end conditions or not.
+     * The validator asks the board for its count of empty fields, and the board also counts
+     * the fields differing from the solution, so the check does not depend on the size of the board.
+     * 
+     * @param terminal The terminal the outcome is printed on.
      */
-    public boolean isGameOver() {
-        if (new Validator(this.gameBoard.getComplexity()).hasEmptySquare(this.gameBoard)) {
+    public boolean isGameOver(Terminal terminal) {
+        if (this.validator.hasEmptySquare(this.gameBoard)) {
                 if (this.mistakesCount >= MAX_MISTAKES) {
-                    System.out.println("Too many mistakes, unfortunate.");
+                    terminal.println("Too many mistakes, unfortunate.");
                     return true;
                 } else {
                     return false;
                 }
-        } else if (solution.equals(gameBoard)) {
-            System.out.println(" _       _       _   _           _                         _ _ ");
-            System.out.println("( )  _  ( )     (_ )(_ )        (_ )                      ( ) )");
-            System.out.println("| | ( ) | |  __  | | | |   _ _   | |   _ _ _   _   __    _| | |");
-            System.out.println("| | | | | |/ __ || | | |  (  _ | | | / _  ) ) ( )/ __ |/ _  | |");
-            System.out.println("| (_/  _) |  ___/| | | |  | (_) )| |( (_| | (_) |  ___/ (_| |_)");
-            System.out.println("| __/|___/  ____)___)___) |  __/(___) __ _)|__  ||____)|__ _)  ");
-            System.out.println("                          | |             ( )_| |           (_)");
-            System.out.println("                          (_)              |___/               ");
+        } else if (this.gameBoard.getMismatchCount() == 0) {
+            terminal.println(" _       _       _   _           _                         _ _ ");
+            terminal.println("( )  _  ( )     (_ )(_ )        (_ )                      ( ) )");
+            terminal.println("| | ( ) | |  __  | | | |   _ _   | |   _ _ _   _   __    _| | |");
+            terminal.println("| | | | | |/ __ || | | |  (  _ | | | / _  ) ) ( )/ __ |/ _  | |");
+            terminal.println("| (_/  _) |  ___/| | | |  | (_) )| |( (_| | (_) |  ___/ (_| |_)");
+            terminal.println("| __/|___/  ____)___)___) |  __/(___) __ _)|__  ||____)|__ _)  ");
+            terminal.println("                          | |             ( )_| |           (_)");
+            terminal.println("                          (_)              |___/               ");
             return true;
         } else{
             // *frantic screaming*
-            System.out.println("An error has occurred.");
+            terminal.println("An error has occurred.");
             return false;
         }
     }
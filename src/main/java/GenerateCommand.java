@@ -0,0 +1,129 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * The headless "generate" command, which writes a batch of puzzles into a file without any interaction:
+ *
+ *     generate --size 16 --difficulty expert --count 100000 --threads 8 --out puzzles.txt
+ *     generate --size 4,9,16 --difficulty easy,intermediate,expert,gamer --count 1000 --format bank --out puzzles.bank
+ *
+ * The sizes and difficulties may be lists, the count is generated for every combination of them.
+ * In the text format every puzzle is written as one line holding the puzzle and its solution in the format
+ * of PuzzleFormat, separated by a comma. The lines are written as the puzzles are finished, so the order is not deterministic.
+ * The bank format writes a PuzzleBank file with a segment per size and difficulty, which the game draws
+ * its puzzles from when it is placed next to it as puzzles.bank.
+ * The throughput and the latency percentiles of the batch are reported on the standard error at the end.
+ *
+ * @author László Tárkányi
+ */
+public class GenerateCommand {
+    private static final int DEFAULT_SIZE = 9;
+    private static final int DEFAULT_COUNT = 1;
+    private static final String USAGE = "Usage: generate [--size 9, or a list like 9,16] [--difficulty easy|intermediate|expert|gamer, or a list] "
+        + "[--count 1, per size and difficulty] [--threads <cores>] [--engine dancing-links|backtracking|symmetry] "
+        + "[--format text|bank] [--out <file>, - for the standard output in the text format]";
+
+    /**
+     * The layout of the output.
+     */
+    enum Format {
+        TEXT,
+        BANK
+    }
+
+    // Class methods
+
+    /**
+     * Runs the command.
+     *
+     * @param args The arguments of the program, starting with "generate".
+     * @return The exit status: 0 on success, 1 if the output could not be written, 2 if the arguments are wrong.
+     */
+    public static int run(String[] args) {
+        List<Integer> sizes;
+        List<Difficulty> difficulties;
+        int count;
+        int threads;
+        BoardFactory.Engine engine;
+        Format format;
+        String out;
+
+        try {
+            CommandLineOptions options = new CommandLineOptions(args);
+            sizes = options.getIntList("size", DEFAULT_SIZE);
+            difficulties = options.getEnumList("difficulty", Difficulty.class, Difficulty.INTERMEDIATE);
+            count = options.getInt("count", DEFAULT_COUNT);
+            threads = options.getInt("threads", Runtime.getRuntime().availableProcessors());
+            engine = options.getEnum("engine", BoardFactory.Engine.class, BoardFactory.Engine.DANCING_LINKS);
+            format = options.getEnum("format", Format.class, Format.TEXT);
+            out = options.getString("out", "-");
+
+            for (int complexity : sizes) {
+                if (complexity < 4 || !PuzzleFormat.isSupportedComplexity(complexity)) {
+                    throw new IllegalArgumentException("--size must be 4, 9, 16 or 25: " + complexity);
+                }
+            }
+            if (count < 0 || threads < 1) {
+                throw new IllegalArgumentException("--count must not be negative and --threads must be positive");
+            }
+            if (format == Format.BANK && out.equals("-")) {
+                throw new IllegalArgumentException("--format bank needs an --out file");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        BatchPuzzleGenerator generator = new BatchPuzzleGenerator(threads, engine);
+        Histogram latencies = new Histogram();
+        long start = System.nanoTime();
+
+        // only the resource of the chosen format is opened, the other one stays null
+        try (Writer writer = format == Format.TEXT ? CommandLineOptions.openWriter(out) : null;
+             PuzzleBankWriter bank = format == Format.BANK ? new PuzzleBankWriter(Paths.get(out)) : null) {
+            for (int complexity : sizes) {
+                StringBuilder line = new StringBuilder(2 * complexity * complexity + 2);
+
+                for (Difficulty difficulty : difficulties) {
+                    // the consumer is never called by two threads at a time, so the line, the stats and the bank can be shared
+                    generator.generateTimed(complexity, difficulty, count, (pair, nanos) -> {
+                        latencies.record(nanos);
+
+                        try {
+                            if (bank != null) {
+                                bank.append(difficulty, pair);
+                            } else {
+                                line.setLength(0);
+                                PuzzleFormat.append(pair.getPuzzle(), line);
+                                line.append(',');
+                                PuzzleFormat.append(pair.getSolution(), line);
+                                line.append('\n');
+                                writer.append(line);
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // the standard output may be the output file
+            System.err.println("An error occurred.");
+            e.printStackTrace();
+            return 1;
+        } finally {
+            generator.shutdown();
+        }
+
+        long total = latencies.getCount();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("Generated %d puzzles of sizes %s and difficulties %s on %d threads in %.2f s (%.1f puzzles/s)%n",
+            total, sizes, difficulties, threads, seconds, total / seconds);
+        System.err.println("Latency per puzzle: " + latencies.summary());
+        return 0;
+    }
+}
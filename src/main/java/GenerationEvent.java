@@ -0,0 +1,39 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event covering the generation of one complete board by BoardFactory.
+ *
+ * @author László Tárkányi
+ */
+@Name("sudoku.Generation")
+@Label("Solution Generation")
+@Category({"Sudoku", "Engine"})
+@Description("Generation of a complete board")
+public class GenerationEvent extends Event {
+    @Label("Complexity")
+    int complexity;
+
+    @Label("Engine")
+    String engine;
+
+    @Label("Generated")
+    boolean generated;
+
+    @Label("Placements")
+    @Description("Numbers placed during the search")
+    long placements;
+
+    @Label("Backtracks")
+    long backtracks;
+
+    @Label("Restarts")
+    long restarts;
+
+    @Label("Constraint Checks")
+    @Description("Candidate lookups of the backtracking generator")
+    long constraintChecks;
+}
@@ -0,0 +1,87 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Describes the shape of a board of a given complexity.
+ * Fields are indexed row by row, and the row, column and sub-matrix of every index
+ * are precomputed so that hot loops never have to divide or allocate.
+ * Instances are immutable and shared between all boards of the same complexity.
+ * 
+ * @author László Tárkányi
+ */
+public class Geometry {
+    // Instance variables
+
+    private static final ConcurrentHashMap<Integer, Geometry> CACHE = new ConcurrentHashMap<Integer, Geometry>();
+
+    private final int complexity;
+    private final int interval;
+    private final int cellCount;
+    private final int[] rowOf;
+    private final int[] columnOf;
+    private final int[] boxOf;
+
+    // Constructor
+
+    private Geometry(int complexity) {
+        this.complexity = complexity;
+        this.interval = (int)Math.sqrt(complexity);
+        this.cellCount = complexity * complexity;
+        this.rowOf = new int[this.cellCount];
+        this.columnOf = new int[this.cellCount];
+        this.boxOf = new int[this.cellCount];
+
+        for (int i = 0; i < this.cellCount; i++) {
+            this.rowOf[i] = i / complexity;
+            this.columnOf[i] = i % complexity;
+            this.boxOf[i] = (this.rowOf[i] / this.interval) * this.interval + (this.columnOf[i] / this.interval);
+        }
+    }
+
+    /**
+     * Gets the shared geometry of a complexity.
+     * 
+     * @param complexity The length of one side of the board.
+     * @return The geometry, built on first use.
+     */
+    public static Geometry of(int complexity) {
+        return CACHE.computeIfAbsent(complexity, Geometry::new);
+    }
+
+    // Accessors
+
+    public int getComplexity() {
+        return this.complexity;
+    }
+
+    public int getInterval() {
+        return this.interval;
+    }
+
+    public int getCellCount() {
+        return this.cellCount;
+    }
+
+    // Class methods
+
+    public int index(int row, int column) {
+        return row * this.complexity + column;
+    }
+
+    public int rowOf(int index) {
+        return this.rowOf[index];
+    }
+
+    public int columnOf(int index) {
+        return this.columnOf[index];
+    }
+
+    /**
+     * Gets the sub-matrix of a field, sub-matrices are numbered from left to right, top to bottom.
+     * 
+     * @param index The index of the field.
+     * @return The index of the sub-matrix.
+     */
+    public int boxOf(int index) {
+        return this.boxOf[index];
+    }
+}
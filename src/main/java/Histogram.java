@@ -0,0 +1,147 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations or other non-negative values, safe to record into from any thread.
+ * Values are counted in buckets growing with the value: every power of two is split into 8 buckets,
+ * so a percentile is reported with an error of at most 12.5% whatever the range of the values,
+ * and recording is a few atomic additions without any allocation.
+ *
+ * @author László Tárkányi
+ */
+public class Histogram {
+    // Instance variables
+
+    private final AtomicLongArray buckets;
+    private final LongAdder count;
+    private final LongAdder sum;
+    private final AtomicLong max;
+    private final boolean durations;
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS; // values below are counted one by one
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - (SUB_BUCKET_BITS + 1)) * SUB_BUCKETS;
+
+    // Constructor
+
+    /**
+     * Creates a histogram of durations in nanoseconds.
+     */
+    public Histogram() {
+        this(true);
+    }
+
+    /**
+     * @param durations Whether the values are durations in nanoseconds, or plain counts.
+     */
+    public Histogram(boolean durations) {
+        this.durations = durations;
+        this.buckets = new AtomicLongArray(BUCKET_COUNT);
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+        this.max = new AtomicLong();
+    }
+
+    // Accessors
+
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    public long getMax() {
+        return this.max.get();
+    }
+
+    public double getMean() {
+        long count = this.count.sum();
+        return count == 0 ? 0 : (double)this.sum.sum() / count;
+    }
+
+    // Class methods
+
+    /**
+     * @param value The value to be counted, negative values are counted as 0.
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        this.buckets.incrementAndGet(bucketOf(value));
+        this.count.increment();
+        this.sum.add(value);
+        if (value > this.max.get()) {
+            this.max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Records the time passed since a start time.
+     *
+     * @param startNanos The value of System.nanoTime at the start.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @param percentile The share of the values that are at most the result, from 0 to 100.
+     * @return The upper bound of the bucket holding the percentile, at most the maximum, 0 if nothing was recorded.
+     */
+    public long percentile(double percentile) {
+        long count = this.count.sum();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long)Math.ceil(percentile / 100 * count));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += this.buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            this.buckets.set(i, 0);
+        }
+        this.count.reset();
+        this.sum.reset();
+        this.max.set(0);
+    }
+
+    /**
+     * Formats the count and the usual percentiles, durations in milliseconds.
+     *
+     * @return A line like "count 12, mean 1.200 ms, p50 ..., max ...".
+     */
+    public String summary() {
+        if (!this.durations) {
+            return String.format("count %d, mean %.1f, p50 %d, p90 %d, p99 %d, max %d",
+                getCount(), getMean(), percentile(50), percentile(90), percentile(99), getMax());
+        }
+        return String.format("count %d, mean %.3f ms, p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms",
+            getCount(), getMean() / 1e6, percentile(50) / 1e6, percentile(90) / 1e6, percentile(99) / 1e6, getMax() / 1e6);
+    }
+
+    private static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int)value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - (SUB_BUCKET_BITS + 1)) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        long subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
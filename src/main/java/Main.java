@@ -1,10 +1,37 @@
-import java.util.Scanner;
-
 public class Main {
     public static void main(String[] args) {
-        Scanner keyBoard = new Scanner(System.in);
-        UserInterface.startUp(keyBoard);
+        if (args.length > 0) {
+            System.exit(runCommand(args));
+        }
+
+        Terminal console = Terminal.console();
+        UserInterface.startUp(console);
+
+        console.close();
+    }
 
-        keyBoard.close();
+    /**
+     * Runs a headless command instead of the interactive user interface.
+     *
+     * @param args The arguments of the program, starting with the name of the command.
+     * @return The exit status of the command.
+     */
+    private static int runCommand(String[] args) {
+        switch (args[0]) {
+            case "generate" -> {
+                return GenerateCommand.run(args);
+            }
+            case "solve" -> {
+                return SolveCommand.run(args);
+            }
+            case "server" -> {
+                return ServerCommand.run(args);
+            }
+            default -> {
+                System.err.println("Unknown command: " + args[0]);
+                System.err.println("Commands: generate, solve, server");
+                return 2;
+            }
+        }
     }
-}
\ No newline at end of file
+}
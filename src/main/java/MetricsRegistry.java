@@ -0,0 +1,144 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Keeps the counters and histograms of the engine and the game by name, and exposes them through JMX.
+ * Counters are LongAdders and histograms record without locking, so both can be updated from any thread
+ * at a low cost. The hot loops of the engine count into local variables, and the totals of every call
+ * are recorded once into a distribution, such as the placements of each generation.
+ *
+ * The metrics can be read with any JMX client, such as JConsole, under "sudoku:type=Metrics",
+ * and are printed on the standard error at exit if the system property sudoku.metrics.dumpOnExit is true.
+ *
+ * @author László Tárkányi
+ */
+public class MetricsRegistry implements MetricsRegistryMXBean {
+    // Instance variables
+
+    private final Map<String, LongAdder> counters;
+    private final Map<String, Histogram> histograms;
+    private final Map<String, Histogram[]> complexityHistograms;
+
+    private static final String OBJECT_NAME = "sudoku:type=Metrics";
+    private static final String DUMP_ON_EXIT_PROPERTY = "sudoku.metrics.dumpOnExit";
+    private static final MetricsRegistry instance = new MetricsRegistry();
+
+    // Constructor
+
+    private MetricsRegistry() {
+        this.counters = new ConcurrentHashMap<String, LongAdder>();
+        this.histograms = new ConcurrentHashMap<String, Histogram>();
+        this.complexityHistograms = new ConcurrentHashMap<String, Histogram[]>();
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            System.out.println("An error occurred.");
+            e.printStackTrace();
+        }
+
+        if (Boolean.getBoolean(DUMP_ON_EXIT_PROPERTY)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(dump()), "metrics-dump"));
+        }
+    }
+
+    public static MetricsRegistry getInstance() {
+        return instance;
+    }
+
+    // Accessors
+
+    /**
+     * Gets a counter, creating it on first use.
+     *
+     * @param name The name of the counter, like "server.sessions.accepted".
+     * @return The counter, it can be kept and updated from any thread.
+     */
+    public LongAdder counter(String name) {
+        return this.counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    /**
+     * Gets a histogram, creating it on first use.
+     *
+     * @param name The name of the histogram, like "replay.save.latency".
+     * @return The histogram, it can be kept and updated from any thread.
+     */
+    public Histogram histogram(String name) {
+        return this.histograms.computeIfAbsent(name, k -> new Histogram());
+    }
+
+    /**
+     * Gets the histogram of durations of a board size, creating it on first use.
+     * The histograms of every size are named after the given name and the size, like "generation.latency.9x9".
+     *
+     * @param name The common name of the histograms.
+     * @param complexity The length of one side of the board.
+     * @return The histogram, it can be kept and updated from any thread.
+     */
+    public Histogram histogram(String name, int complexity) {
+        return bySize(name, complexity, true);
+    }
+
+    /**
+     * Gets the histogram of a count per call of a board size, creating it on first use,
+     * named like the histograms of durations, e.g. "generation.placements.9x9".
+     *
+     * @param name The common name of the histograms.
+     * @param complexity The length of one side of the board.
+     * @return The histogram, it can be kept and updated from any thread.
+     */
+    public Histogram distribution(String name, int complexity) {
+        return bySize(name, complexity, false);
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<String, Long>();
+        this.counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    @Override
+    public Map<String, String> getHistograms() {
+        Map<String, String> summaries = new TreeMap<String, String>();
+        this.histograms.forEach((name, histogram) -> summaries.put(name, histogram.summary()));
+        return summaries;
+    }
+
+    // Class methods
+
+    @Override
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        getCounters().forEach((name, value) -> out.append(name).append(": ").append(value).append('\n'));
+        new TreeMap<String, Histogram>(this.histograms).forEach((name, histogram) -> {
+            if (histogram.getCount() > 0) {
+                out.append(name).append(": ").append(histogram.summary()).append('\n');
+            }
+        });
+        return out.toString();
+    }
+
+    @Override
+    public void reset() {
+        this.counters.values().forEach(LongAdder::reset);
+        this.histograms.values().forEach(Histogram::reset);
+    }
+
+    private Histogram bySize(String name, int complexity, boolean durations) {
+        Histogram[] bySize = this.complexityHistograms.computeIfAbsent(name, k -> new Histogram[PuzzleFormat.MAX_COMPLEXITY + 1]);
+        Histogram histogram = bySize[complexity];
+        if (histogram == null) {
+            histogram = this.histograms.computeIfAbsent(name + "." + complexity + "x" + complexity, k -> new Histogram(durations));
+            bySize[complexity] = histogram;
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,28 @@
+import java.util.Map;
+
+/**
+ * The management interface of the metrics registry, registered as "sudoku:type=Metrics".
+ *
+ * @author László Tárkányi
+ */
+public interface MetricsRegistryMXBean {
+    /**
+     * @return The current value of every counter by name.
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * @return The summary of every histogram by name.
+     */
+    Map<String, String> getHistograms();
+
+    /**
+     * @return Every counter and every histogram that has recorded anything as text, one per line.
+     */
+    String dump();
+
+    /**
+     * Sets every counter and histogram back to zero.
+     */
+    void reset();
+}
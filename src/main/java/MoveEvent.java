@@ -0,0 +1,34 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event covering a move, an undo or a redo of the player in Game.
+ *
+ * @author László Tárkányi
+ */
+@Name("sudoku.Move")
+@Label("Move")
+@Category({"Sudoku", "Game"})
+@Description("A move, undo or redo of the player")
+@StackTrace(false)
+public class MoveEvent extends Event {
+    @Label("Action")
+    @Description("move, undo or redo")
+    String action;
+
+    @Label("Row")
+    int row;
+
+    @Label("Column")
+    int column;
+
+    @Label("Value")
+    int value;
+
+    @Label("Mistake")
+    boolean mistake;
+}
@@ -0,0 +1,274 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Reads pre-generated puzzles from a puzzle bank file written by PuzzleBankWriter.
+ *
+ * A bank is a series of segments followed by a segment table and a footer. Every segment holds
+ * puzzles of a single complexity and difficulty in fixed-size records, so puzzle k of a segment
+ * starts at k times the record size. A record is a bitmap of the clues, one bit per field,
+ * followed by the solution packed at 4 bits per field up to 16x16 and 5 bits per field above,
+ * each field storing its number minus one. The segment table lists the complexity, the difficulty,
+ * the record size, the number of records and the position of every segment. The footer holds
+ * the position of the table, the number of segments and the magic number.
+ *
+ * Segments are read through memory mappings, so fetching a puzzle is a position calculation
+ * and the decoding of a single record, whatever the size of the bank.
+ *
+ * @author László Tárkányi
+ */
+public class PuzzleBank implements Closeable {
+    // Instance variables
+
+    private final FileChannel channel;
+    private final Map<String, ArrayList<Segment>> segments;
+
+    static final int MAGIC = 0x53444B42; // "SDKB"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 6;
+    static final int SEGMENT_ENTRY_SIZE = 24;
+    static final int FOOTER_SIZE = 16;
+
+    // Constructor
+
+    /**
+     * Opens a bank and maps its segments.
+     *
+     * @param path The location of the bank file.
+     */
+    public PuzzleBank(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.segments = new HashMap<String, ArrayList<Segment>>();
+
+        try {
+            long size = this.channel.size();
+            if (size < HEADER_SIZE + FOOTER_SIZE) {
+                throw new IOException("Not a puzzle bank");
+            }
+            ByteBuffer header = read(0, HEADER_SIZE);
+            ByteBuffer footer = read(size - FOOTER_SIZE, FOOTER_SIZE);
+            if (header.getInt(0) != MAGIC || footer.getInt(12) != MAGIC) {
+                throw new IOException("Not a puzzle bank");
+            }
+            if (header.getShort(4) != VERSION) {
+                throw new IOException("Unsupported puzzle bank version " + header.getShort(4));
+            }
+
+            // the segment table ends where the footer starts
+            long tableOffset = footer.getLong(0);
+            int segmentCount = footer.getInt(8);
+            if (segmentCount < 0 || tableOffset < HEADER_SIZE
+                    || tableOffset != size - FOOTER_SIZE - (long) segmentCount * SEGMENT_ENTRY_SIZE) {
+                throw new IOException("Corrupt segment table of the puzzle bank");
+            }
+            ByteBuffer table = read(tableOffset, segmentCount * SEGMENT_ENTRY_SIZE);
+
+            for (int i = 0; i < segmentCount; i++) {
+                int base = i * SEGMENT_ENTRY_SIZE;
+                int complexity = table.get(base) & 0xFF;
+                int difficultyOrdinal = table.get(base + 1) & 0xFF;
+                int recordSize = table.getInt(base + 4);
+                long count = table.getLong(base + 8);
+                long offset = table.getLong(base + 16);
+
+                if (!PuzzleFormat.isSupportedComplexity(complexity) || difficultyOrdinal >= Difficulty.values().length) {
+                    throw new IOException("Corrupt segment " + i + " of the puzzle bank");
+                }
+                if (recordSize != recordSize(complexity)) {
+                    throw new IOException("Unexpected record size " + recordSize + " for " + complexity + "x" + complexity);
+                }
+                // the records lie between the header and the table, and a mapping is at most 2 GB
+                if (count < 0 || count > Integer.MAX_VALUE / recordSize || offset < HEADER_SIZE || offset > tableOffset - count * recordSize) {
+                    throw new IOException("Segment " + i + " lies outside of the puzzle bank");
+                }
+                Difficulty difficulty = Difficulty.values()[difficultyOrdinal];
+                MappedByteBuffer data = this.channel.map(FileChannel.MapMode.READ_ONLY, offset, count * recordSize);
+                ArrayList<Segment> list = this.segments.computeIfAbsent(key(complexity, difficulty), k -> new ArrayList<Segment>());
+                long first = list.isEmpty() ? 0 : list.get(list.size() - 1).end();
+                list.add(new Segment(first, count, data));
+            }
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    // Accessors
+
+    /**
+     * @return The number of puzzles of a size and difficulty in the bank.
+     */
+    public long count(int complexity, Difficulty difficulty) {
+        ArrayList<Segment> list = this.segments.get(key(complexity, difficulty));
+        return list == null ? 0 : list.get(list.size() - 1).end();
+    }
+
+    // Class methods
+
+    /**
+     * Fetches a puzzle by its number.
+     *
+     * @param complexity The length of one side of the puzzle.
+     * @param difficulty The difficulty of the puzzle.
+     * @param k The number of the puzzle among the puzzles of its size and difficulty, from 0.
+     * @return The puzzle and its solution as new boards.
+     */
+    public PuzzlePair get(int complexity, Difficulty difficulty, long k) {
+        ArrayList<Segment> list = this.segments.get(key(complexity, difficulty));
+        if (list == null || k < 0 || k >= count(complexity, difficulty)) {
+            throw new IndexOutOfBoundsException("Puzzle " + k + " of " + count(complexity, difficulty));
+        }
+
+        // a size and difficulty only spans several segments if it was written in several runs
+        int low = 0;
+        int high = list.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (list.get(middle).first <= k) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        Segment segment = list.get(low);
+        return decode(segment.data, (int) ((k - segment.first) * recordSize(complexity)), complexity);
+    }
+
+    /**
+     * Fetches a puzzle picked uniformly at random.
+     *
+     * @param complexity The length of one side of the puzzle.
+     * @param difficulty The difficulty of the puzzle.
+     * @param random The source of randomness.
+     * @return The puzzle and its solution, or null if the bank has no puzzle of the size and difficulty.
+     */
+    public PuzzlePair random(int complexity, Difficulty difficulty, Random random) {
+        long count = count(complexity, difficulty);
+        if (count == 0) {
+            return null;
+        }
+        long k = count <= Integer.MAX_VALUE ? random.nextInt((int) count) : Math.floorMod(random.nextLong(), count);
+        return get(complexity, difficulty, k);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Calculates the length of a record.
+     *
+     * @param complexity The length of one side of the puzzles.
+     * @return The number of bytes of the clue bitmap and the packed solution.
+     */
+    static int recordSize(int complexity) {
+        int cellCount = complexity * complexity;
+        return (cellCount + 7) / 8 + (cellCount * bitsPerCell(complexity) + 7) / 8;
+    }
+
+    static int bitsPerCell(int complexity) {
+        return complexity <= 16 ? 4 : 5;
+    }
+
+    /**
+     * Packs a puzzle and its solution into a record.
+     *
+     * @param pair The puzzle and its solution.
+     * @param record The destination, at least recordSize bytes long and filled with zeros.
+     */
+    static void encode(PuzzlePair pair, byte[] record) {
+        Board puzzle = pair.getPuzzle();
+        Board solution = pair.getSolution();
+        int complexity = puzzle.getComplexity();
+        int cellCount = complexity * complexity;
+        int bits = bitsPerCell(complexity);
+        int solutionStart = (cellCount + 7) / 8;
+
+        for (int i = 0; i < cellCount; i++) {
+            if (puzzle.get(i) != 0) {
+                record[i >>> 3] |= (byte) (1 << (i & 7));
+            }
+
+            // the value may span two bytes
+            int value = solution.get(i) - 1;
+            int bit = i * bits;
+            int index = solutionStart + (bit >>> 3);
+            int word = value << (bit & 7);
+            record[index] |= (byte) word;
+            if ((bit & 7) + bits > 8) {
+                record[index + 1] |= (byte) (word >>> 8);
+            }
+        }
+    }
+
+    /**
+     * Unpacks a record into a puzzle and its solution.
+     */
+    private static PuzzlePair decode(ByteBuffer data, int position, int complexity) {
+        int cellCount = complexity * complexity;
+        int bits = bitsPerCell(complexity);
+        int mask = (1 << bits) - 1;
+        int solutionStart = position + (cellCount + 7) / 8;
+        Board puzzle = new Board(complexity);
+        Board solution = new Board(complexity);
+
+        for (int i = 0; i < cellCount; i++) {
+            int bit = i * bits;
+            int index = solutionStart + (bit >>> 3);
+            int word = data.get(index) & 0xFF;
+            if ((bit & 7) + bits > 8) {
+                word |= (data.get(index + 1) & 0xFF) << 8;
+            }
+            int value = ((word >>> (bit & 7)) & mask) + 1;
+
+            solution.set(i, value);
+            if ((data.get(position + (i >>> 3)) & (1 << (i & 7))) != 0) {
+                puzzle.set(i, value);
+            }
+        }
+        return new PuzzlePair(solution, puzzle);
+    }
+
+    static String key(int complexity, Difficulty difficulty) {
+        return complexity + "/" + difficulty;
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the puzzle bank");
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * The mapped records of one segment and the number of the first puzzle in it.
+     */
+    private static class Segment {
+        private final long first;
+        private final long count;
+        private final MappedByteBuffer data;
+
+        Segment(long first, long count, MappedByteBuffer data) {
+            this.first = first;
+            this.count = count;
+            this.data = data;
+        }
+
+        long end() {
+            return this.first + this.count;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Writes puzzles into a new puzzle bank file one at a time, see PuzzleBank for the layout.
+ * A segment is started whenever the size or difficulty of the puzzles changes,
+ * so puzzles should be appended grouped by size and difficulty to keep the number of segments low.
+ * The bank can only be read once the writer has been closed.
+ *
+ * @author László Tárkányi
+ */
+public class PuzzleBankWriter implements Closeable {
+    // Instance variables
+
+    private final DataOutputStream out;
+    private final ArrayList<long[]> table;
+    private long position;
+    private int complexity;
+    private Difficulty difficulty;
+    private long segmentOffset;
+    private long segmentCount;
+    private byte[] record;
+    private boolean closed;
+
+    // Constructor
+
+    /**
+     * Creates the bank file, overwriting any file at its location.
+     *
+     * @param path The location of the bank file.
+     */
+    public PuzzleBankWriter(Path path) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+        this.table = new ArrayList<long[]>();
+        this.out.writeInt(PuzzleBank.MAGIC);
+        this.out.writeShort(PuzzleBank.VERSION);
+        this.position = PuzzleBank.HEADER_SIZE;
+    }
+
+    // Class methods
+
+    /**
+     * Appends a puzzle to the end of the bank.
+     *
+     * @param difficulty The difficulty the puzzle was carved for.
+     * @param pair The puzzle and its solution.
+     */
+    public void append(Difficulty difficulty, PuzzlePair pair) throws IOException {
+        int complexity = pair.getPuzzle().getComplexity();
+        int recordSize = PuzzleBank.recordSize(complexity);
+
+        // a mapped segment cannot be larger than 2 GB
+        if (complexity != this.complexity || difficulty != this.difficulty || (this.segmentCount + 1) * recordSize > Integer.MAX_VALUE) {
+            endSegment();
+            this.complexity = complexity;
+            this.difficulty = difficulty;
+            this.segmentOffset = this.position;
+            this.record = new byte[recordSize];
+        }
+
+        Arrays.fill(this.record, (byte) 0);
+        PuzzleBank.encode(pair, this.record);
+        this.out.write(this.record);
+        this.position += recordSize;
+        this.segmentCount++;
+    }
+
+    /**
+     * Writes the segment table and the footer, after which the bank can be read.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        try {
+            endSegment();
+            long tableOffset = this.position;
+            for (long[] segment : this.table) {
+                this.out.writeByte((int) segment[0]);
+                this.out.writeByte((int) segment[1]);
+                this.out.writeShort(0);
+                this.out.writeInt((int) segment[2]);
+                this.out.writeLong(segment[3]);
+                this.out.writeLong(segment[4]);
+            }
+            this.out.writeLong(tableOffset);
+            this.out.writeInt(this.table.size());
+            this.out.writeInt(PuzzleBank.MAGIC);
+        } finally {
+            this.out.close();
+        }
+    }
+
+    /**
+     * Records the finished segment in the segment table.
+     */
+    private void endSegment() {
+        if (this.segmentCount > 0) {
+            this.table.add(new long[] {this.complexity, this.difficulty.ordinal(), PuzzleBank.recordSize(this.complexity), this.segmentCount, this.segmentOffset});
+        }
+        this.segmentCount = 0;
+    }
+}
@@ -0,0 +1,213 @@
+import java.util.Random;
+
+/**
+ * Removes clues from a complete board while making sure that the puzzle keeps exactly one solution.
+ * A clue is only removed if a solution counter that stops at two still finds a single solution.
+ * Each check is given a branch budget, a clue whose check runs out of budget is kept,
+ * so sparse 16x16 and 25x25 puzzles carve in bounded time without ever becoming ambiguous.
+ * Carving can also target a grade, in which case a clue is only removed if the puzzle
+ * stays solvable without techniques harder than the target, and carving goes on
+ * until the puzzle actually needs the target technique.
+ *
+ * @author László Tárkányi
+ */
+public class PuzzleCarver {
+    // Instance variables
+
+    private final int complexity;
+    private final SolutionCounter counter;
+    private TechniqueGrader grader;
+    private Technique grade;
+    private static final long MAX_BRANCHES_PER_CHECK = 250;
+    private static final int MAX_PASSES = 128;
+
+    // Constructor
+
+    public PuzzleCarver(int complexity) {
+        this.complexity = complexity;
+        this.counter = new SolutionCounter(complexity);
+    }
+
+    // Accessors
+
+    /**
+     * Gets the grade of the last puzzle carved for a target technique.
+     * It is below the target if no pass of the carving reached it.
+     *
+     * @return The hardest technique the puzzle needs, or null if the last puzzle was carved without a target.
+     */
+    public Technique getGrade() {
+        return this.grade;
+    }
+
+    // Class methods
+
+    /**
+     * Visits the filled fields in a random order and removes every clue that can be removed
+     * without making the puzzle ambiguous, until the requested number of clues is left.
+     * If the puzzle cannot be reduced that far, it is left with as few clues as the visit allowed.
+     *
+     * @param puzzle A board with a unique solution, usually a fully generated one.
+     * @param numOfClues The number of clues to be kept.
+     * @param random The source of randomness for the order of the fields.
+     * @return The number of clues removed.
+     */
+    public int carve(Board puzzle, int numOfClues, Random random) {
+        return carveTo(puzzle, numOfClues, null, random);
+    }
+
+    /**
+     * Carves a puzzle that needs exactly the given technique. A clue is only removed if the puzzle
+     * stays unique and needs no harder technique, and clues are removed past the requested number
+     * as long as the puzzle does not need the technique yet. A pass that visits every field without getting there
+     * is started over from the original board in a new order, up to MAX_PASSES times, after which
+     * the hardest puzzle of the passes is kept; getGrade tells which technique it needs.
+     *
+     * @param puzzle A board with a unique solution, usually a fully generated one.
+     * @param numOfClues The number of clues to be kept.
+     * @param target The technique the puzzle should need, GUESSING for puzzles the known techniques cannot solve.
+     * @param random The source of randomness for the order of the fields.
+     * @return The number of clues removed.
+     */
+    public int carve(Board puzzle, int numOfClues, Technique target, Random random) {
+        if (this.grader == null) {
+            this.grader = new TechniqueGrader(this.complexity);
+        }
+        return carveTo(puzzle, numOfClues, target, random);
+    }
+
+    /**
+     * @param target The technique the puzzle should need, or null to only keep the solution unique.
+     */
+    private int carveTo(Board puzzle, int numOfClues, Technique target, Random random) {
+        CarvingEvent event = new CarvingEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int initialClues = countClues(puzzle);
+        int attempts = 0;
+        int passes = 0;
+
+        // the board every pass starts from, and the hardest puzzle carved so far
+        Board original = null;
+        Board hardest = null;
+        Technique hardestGrade = null;
+        if (target != null) {
+            original = new Board(this.complexity);
+            original.copyValues(puzzle);
+            hardest = new Board(this.complexity);
+        }
+
+        while (true) {
+            passes++;
+            attempts += carveOnce(puzzle, numOfClues, target, random);
+            if (target == null || target.isAtMost(this.grade)) {
+                break;
+            }
+
+            if (hardestGrade == null || !this.grade.isAtMost(hardestGrade)) {
+                hardest.copyValues(puzzle);
+                hardestGrade = this.grade;
+            }
+            if (passes == MAX_PASSES) {
+                puzzle.copyValues(hardest);
+                this.grade = hardestGrade;
+                break;
+            }
+            puzzle.copyValues(original);
+        }
+        int removed = initialClues - countClues(puzzle);
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.histogram("carving.latency", this.complexity).recordSince(start);
+        metrics.distribution("carving.cluesRemoved", this.complexity).record(removed);
+        metrics.distribution("carving.attempts", this.complexity).record(attempts);
+        metrics.distribution("carving.passes", this.complexity).record(passes);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.complexity = this.complexity;
+            event.targetClues = numOfClues;
+            event.hardestTechnique = target != null ? target.name() : Technique.GUESSING.name();
+            event.grade = this.grade != null ? this.grade.name() : null;
+            event.passes = passes;
+            event.attempts = attempts;
+            event.cluesRemoved = removed;
+            event.commit();
+        }
+        return removed;
+    }
+
+    /**
+     * Visits the filled fields in a random order once and removes the clues that can be removed,
+     * leaving the grade of the result in the grade field if there is a target.
+     *
+     * @return The number of clues tried for removal.
+     */
+    private int carveOnce(Board puzzle, int numOfClues, Technique target, Random random) {
+        int cellCount = this.complexity * this.complexity;
+        int[] order = new int[cellCount];
+        int clues = countClues(puzzle);
+
+        for (int i = 0; i < cellCount; i++) {
+            order[i] = i;
+        }
+
+        // shuffle the order in which the fields are visited
+        for (int i = cellCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+
+        // every removal is graded against a harder limit, GUESSING sets no limit and is only graded when needed
+        boolean limited = target != null && target != Technique.GUESSING;
+        this.grade = target != null ? this.grader.grade(puzzle) : null;
+        boolean graded = true;
+        int removed = 0;
+        int attempts = 0;
+
+        for (int i = 0; i < cellCount; i++) {
+            if (clues - removed <= numOfClues) {
+                if (target == null) {
+                    break;
+                }
+                if (!graded) {
+                    this.grade = this.grader.grade(puzzle);
+                    graded = true;
+                }
+                if (target.isAtMost(this.grade)) {
+                    break;
+                }
+            }
+
+            int value = puzzle.get(order[i]);
+            if (value == 0) {
+                continue;
+            }
+            attempts++;
+            puzzle.set(order[i], 0);
+
+            if (this.counter.countSolutions(puzzle, 2, MAX_BRANCHES_PER_CHECK) == 1) {
+                Technique grade = limited ? this.grader.grade(puzzle) : null;
+                if (!limited || (grade != null && grade.isAtMost(target))) {
+                    removed++;
+                    this.grade = grade;
+                    graded = limited;
+                    continue;
+                }
+            }
+            // the clue is needed for a unique solution or a grade within the target, put it back
+            puzzle.set(order[i], value);
+        }
+
+        if (target != null && !graded) {
+            this.grade = this.grader.grade(puzzle);
+        }
+        return attempts;
+    }
+
+    private static int countClues(Board puzzle) {
+        return puzzle.getComplexity() * puzzle.getComplexity() - puzzle.getEmptyCount();
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Converts boards to and from the common one-line text format.
+ * A board is written row by row as one character per field, '.' for an empty field,
+ * '1' to '9' for the numbers up to 9 and 'A' to 'P' for the numbers 10 to 25,
+ * so a 9x9 board is a line of 81 characters. When reading, '0' is also accepted for an empty field
+ * and the letters may be lower case. The size of the board follows from the length of the line.
+ *
+ * @author László Tárkányi
+ */
+public class PuzzleFormat {
+    private static final String SYMBOLS = ".123456789ABCDEFGHIJKLMNOP";
+    public static final char EMPTY = '.';
+    public static final int MAX_COMPLEXITY = SYMBOLS.length() - 1;
+
+    // Class methods
+
+    /**
+     * Writes a board as a line of symbols.
+     *
+     * @param b The board to be written.
+     * @param out The destination.
+     */
+    public static void append(Board b, StringBuilder out) {
+        int cellCount = b.getComplexity() * b.getComplexity();
+        for (int i = 0; i < cellCount; i++) {
+            out.append(SYMBOLS.charAt(b.get(i)));
+        }
+    }
+
+    /**
+     * Writes a board as a line of symbols.
+     *
+     * @param b The board to be written.
+     * @return The line, without a line separator.
+     */
+    public static String format(Board b) {
+        StringBuilder out = new StringBuilder(b.getComplexity() * b.getComplexity());
+        append(b, out);
+        return out.toString();
+    }
+
+    /**
+     * @param complexity The length of one side of a board.
+     * @return Whether boards of the complexity can be written, a perfect square from 1 to MAX_COMPLEXITY.
+     */
+    public static boolean isSupportedComplexity(int complexity) {
+        int interval = (int)Math.round(Math.sqrt(complexity));
+        return complexity > 0 && complexity <= MAX_COMPLEXITY && interval * interval == complexity;
+    }
+
+    /**
+     * Reads a board from a line of symbols.
+     *
+     * @param line The symbols of the fields, row by row.
+     * @return The board.
+     * @throws IllegalArgumentException If the length is not the square of a perfect square
+     *         or a symbol is not a number of the board.
+     */
+    public static Board parse(CharSequence line) {
+        return parse(line, 0, line.length());
+    }
+
+    /**
+     * Reads a board from a part of a line of symbols.
+     *
+     * @param line The text holding the board.
+     * @param from The position of the first field.
+     * @param to The position after the last field.
+     * @return The board.
+     * @throws IllegalArgumentException If the length is not the square of a perfect square
+     *         or a symbol is not a number of the board.
+     */
+    public static Board parse(CharSequence line, int from, int to) {
+        int length = to - from;
+        int complexity = (int)Math.round(Math.sqrt(length));
+        if (complexity * complexity != length || !isSupportedComplexity(complexity)) {
+            throw new IllegalArgumentException("Not a board: " + length + " symbols");
+        }
+
+        Board b = new Board(complexity);
+        for (int i = 0; i < length; i++) {
+            int value = valueOf(line.charAt(from + i));
+            if (value < 0 || value > complexity) {
+                throw new IllegalArgumentException("Invalid symbol '" + line.charAt(from + i) + "' at " + i);
+            }
+            b.set(i, value);
+        }
+        return b;
+    }
+
+    /**
+     * @return The number of a symbol, 0 for an empty field, -1 if the symbol is unknown.
+     */
+    private static int valueOf(char symbol) {
+        if (symbol == EMPTY || symbol == '0') {
+            return 0;
+        }
+        if (symbol >= '1' && symbol <= '9') {
+            return symbol - '0';
+        }
+        char upper = Character.toUpperCase(symbol);
+        if (upper >= 'A' && upper <= 'P') {
+            return upper - 'A' + 10;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * A generated puzzle together with the complete board it was carved from.
+ * 
+ * @author László Tárkányi
+ */
+public class PuzzlePair {
+    // Instance variables
+
+    private final Board solution;
+    private final Board puzzle;
+
+    // Constructor
+
+    public PuzzlePair(Board solution, Board puzzle) {
+        this.solution = solution;
+        this.puzzle = puzzle;
+    }
+
+    // Accessors
+
+    public Board getSolution() {
+        return this.solution;
+    }
+
+    public Board getPuzzle() {
+        return this.puzzle;
+    }
+}
@@ -0,0 +1,313 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Keeps a number of ready puzzles for every size and difficulty that has been played,
+ * so that a new game can start without waiting for generation and carving.
+ * Taking a puzzle is a dequeue, the taken puzzle is replaced by background threads.
+ * Puzzles older than the maximum age are dropped instead of being played.
+ *
+ * The pool is saved into a file when closed and loaded from it when created,
+ * so the puzzles generated during one session are ready at the start of the next.
+ *
+ * A pool is safe to share between the sessions of the game server: any number of threads
+ * can take puzzles from it at the same time.
+ *
+ * @author László Tárkányi
+ */
+public class PuzzlePool {
+    // Instance variables
+
+    private final int capacity;
+    private final long maxAgeMillis;
+    private final Path file;
+    private final BiFunction<Integer, Difficulty, PuzzlePair> generator;
+    private final ExecutorService workers;
+    private final Map<String, ArrayBlockingQueue<Entry>> queues;
+    private final Map<String, AtomicInteger> pending;
+    private volatile boolean closed;
+
+    private static final int MAGIC = 0x53444B50; // "SDKP"
+    private static final int VERSION = 1;
+    private static final String SAVE_SUFFIX = ".save";
+
+    // Constructor
+
+    /**
+     * Creates a pool and loads the puzzles saved by the previous session.
+     *
+     * @param capacity The number of puzzles kept for each size and difficulty.
+     * @param maxAgeMillis The age after which a puzzle is dropped.
+     * @param threads The number of background threads refilling the pool.
+     * @param file The file the pool is saved into, it may not exist yet.
+     * @param generator Generates a puzzle of a size and difficulty, called from the background threads.
+     */
+    public PuzzlePool(int capacity, long maxAgeMillis, int threads, Path file, BiFunction<Integer, Difficulty, PuzzlePair> generator) {
+        if (capacity < 1 || threads < 1) {
+            throw new IllegalArgumentException("The capacity and the number of threads must be positive");
+        }
+        this.capacity = capacity;
+        this.maxAgeMillis = maxAgeMillis;
+        this.file = file;
+        this.generator = generator;
+        this.queues = new ConcurrentHashMap<String, ArrayBlockingQueue<Entry>>();
+        this.pending = new ConcurrentHashMap<String, AtomicInteger>();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "puzzle-pool");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+
+        try {
+            load();
+        } catch (IOException e) {
+            // a broken file would fail every start, so it is dropped and the pool starts empty
+            System.out.println("An error occurred.");
+            e.printStackTrace();
+            try {
+                Files.deleteIfExists(this.file);
+            } catch (IOException deleteError) {
+                deleteError.printStackTrace();
+            }
+        }
+    }
+
+    // Accessors
+
+    /**
+     * @return The number of ready puzzles of a size and difficulty.
+     */
+    public int size(int complexity, Difficulty difficulty) {
+        ArrayBlockingQueue<Entry> queue = this.queues.get(key(complexity, difficulty));
+        return queue != null ? queue.size() : 0;
+    }
+
+    // Class methods
+
+    /**
+     * Takes a ready puzzle, or generates one on the calling thread if there is none.
+     * Either way the pool of the size and difficulty is refilled in the background.
+     *
+     * @param complexity The length of one side of the puzzle.
+     * @param difficulty The difficulty of the puzzle.
+     * @return The puzzle and its solution.
+     */
+    public PuzzlePair take(int complexity, Difficulty difficulty) {
+        ArrayBlockingQueue<Entry> queue = queue(complexity, difficulty);
+        Entry entry = queue.poll();
+        long now = System.currentTimeMillis();
+
+        while (entry != null && isStale(entry, now)) {
+            entry = queue.poll();
+        }
+        refill(complexity, difficulty);
+        return entry != null ? entry.pair : this.generator.apply(complexity, difficulty);
+    }
+
+    /**
+     * Starts filling the pool of a size and difficulty in the background.
+     *
+     * @param complexity The length of one side of the puzzles.
+     * @param difficulty The difficulty of the puzzles.
+     */
+    public void warmUp(int complexity, Difficulty difficulty) {
+        queue(complexity, difficulty);
+        refill(complexity, difficulty);
+    }
+
+    /**
+     * Stops the background threads and saves the ready puzzles into the file of the pool.
+     */
+    public synchronized void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.workers.shutdownNow();
+
+        try {
+            this.workers.awaitTermination(1, TimeUnit.SECONDS);
+            save();
+        } catch (IOException | InterruptedException e) {
+            System.out.println("An error occurred.");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Drops the stale puzzles of a size and difficulty and schedules the generation of the missing ones.
+     */
+    private void refill(int complexity, Difficulty difficulty) {
+        String key = key(complexity, difficulty);
+        ArrayBlockingQueue<Entry> queue = queue(complexity, difficulty);
+        AtomicInteger scheduled = this.pending.computeIfAbsent(key, k -> new AtomicInteger());
+        long now = System.currentTimeMillis();
+        queue.removeIf(entry -> isStale(entry, now));
+
+        while (!this.closed) {
+            // claim a generation before scheduling it, so that threads refilling at the same time do not overfill the pool
+            int count = scheduled.get();
+            if (queue.size() + count >= this.capacity) {
+                break;
+            }
+            if (!scheduled.compareAndSet(count, count + 1)) {
+                continue;
+            }
+
+            try {
+                this.workers.execute(() -> {
+                    try {
+                        if (!this.closed) {
+                            PuzzlePair pair = this.generator.apply(complexity, difficulty);
+                            queue.offer(new Entry(pair, System.currentTimeMillis(), difficulty));
+                        }
+                    } finally {
+                        scheduled.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // closed in the meantime
+                scheduled.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private ArrayBlockingQueue<Entry> queue(int complexity, Difficulty difficulty) {
+        return this.queues.computeIfAbsent(key(complexity, difficulty), k -> new ArrayBlockingQueue<Entry>(this.capacity));
+    }
+
+    private boolean isStale(Entry entry, long now) {
+        return now - entry.createdAt > this.maxAgeMillis;
+    }
+
+    private static String key(int complexity, Difficulty difficulty) {
+        return complexity + "/" + difficulty;
+    }
+
+    /**
+     * Writes every ready puzzle into a new file that replaces the old one in one move.
+     */
+    private void save() throws IOException {
+        ArrayList<Entry> entries = new ArrayList<Entry>();
+        for (ArrayBlockingQueue<Entry> queue : this.queues.values()) {
+            entries.addAll(queue);
+        }
+
+        Path saved = this.file.resolveSibling(this.file.getFileName() + SAVE_SUFFIX);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(saved)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(entries.size());
+
+            for (Entry entry : entries) {
+                Board puzzle = entry.pair.getPuzzle();
+                int complexity = puzzle.getComplexity();
+                out.writeByte(complexity);
+                out.writeByte(entry.difficulty.ordinal());
+                out.writeLong(entry.createdAt);
+                for (int i = 0; i < complexity * complexity; i++) {
+                    out.writeByte(puzzle.get(i));
+                    out.writeByte(entry.pair.getSolution().get(i));
+                }
+            }
+        } finally {
+            out.close();
+        }
+        Files.move(saved, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the puzzles saved by the previous session, dropping the stale ones,
+     * and starts refilling every size and difficulty found in the file.
+     * The whole file is read and checked before any of its puzzles is used.
+     *
+     * @throws IOException If the file cannot be read, is cut short or holds a size, difficulty or number out of range.
+     */
+    private void load() throws IOException {
+        if (!Files.isRegularFile(this.file)) {
+            return;
+        }
+
+        ArrayList<Entry> entries = new ArrayList<Entry>();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.file)));
+        try {
+            if (in.readInt() != MAGIC || in.readUnsignedShort() != VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            long now = System.currentTimeMillis();
+
+            for (int n = 0; n < count; n++) {
+                int complexity = in.readUnsignedByte();
+                int ordinal = in.readUnsignedByte();
+                if (!PuzzleFormat.isSupportedComplexity(complexity) || ordinal >= Difficulty.values().length) {
+                    throw new IOException("Corrupt puzzle " + n + " in " + this.file);
+                }
+                Difficulty difficulty = Difficulty.values()[ordinal];
+                long createdAt = in.readLong();
+                Board puzzle = new Board(complexity);
+                Board solution = new Board(complexity);
+                for (int i = 0; i < complexity * complexity; i++) {
+                    int clue = in.readUnsignedByte();
+                    int value = in.readUnsignedByte();
+                    // a clue is either empty or the number of the solution
+                    if (value < 1 || value > complexity || (clue != 0 && clue != value)) {
+                        throw new IOException("Corrupt puzzle " + n + " in " + this.file);
+                    }
+                    puzzle.set(i, clue);
+                    solution.set(i, value);
+                }
+
+                Entry entry = new Entry(new PuzzlePair(solution, puzzle), createdAt, difficulty);
+                if (!isStale(entry, now)) {
+                    entries.add(entry);
+                }
+            }
+        } finally {
+            in.close();
+        }
+
+        for (Entry entry : entries) {
+            queue(entry.pair.getPuzzle().getComplexity(), entry.difficulty).offer(entry);
+        }
+
+        for (String key : this.queues.keySet()) {
+            String[] parts = key.split("/");
+            refill(Integer.parseInt(parts[0]), Difficulty.valueOf(parts[1]));
+        }
+    }
+
+    /**
+     * A ready puzzle with its difficulty and the time it was generated.
+     */
+    private static class Entry {
+        private final PuzzlePair pair;
+        private final long createdAt;
+        private final Difficulty difficulty;
+
+        Entry(PuzzlePair pair, long createdAt, Difficulty difficulty) {
+            this.pair = pair;
+            this.createdAt = createdAt;
+            this.difficulty = difficulty;
+        }
+    }
+}
@@ -1,8 +1,12 @@
+import java.util.ArrayDeque;
 import java.util.Calendar;
 import java.util.Deque;
+import java.util.Iterator;
 
 /**
  * Stores the steps log of a sudoku game.
+ * The board is only stored once, as it was at the start of the game,
+ * the board at any later step is rebuilt from the steps on demand.
  * 
  * @author Laszlo Tarkanyi
  */
@@ -10,12 +14,18 @@ public class Replay {
     // Instance variables
 
     private String date;
+    private Board initialBoard;
     private Deque<Step> game;
 
-    // Constructor
+    // Constructors
 
-    public Replay(Deque<Step> game) {
-        this.date = Calendar.getInstance().getTime().toString();
+    public Replay(Board initialBoard, Deque<Step> game) {
+        this(Calendar.getInstance().getTime().toString(), initialBoard, game);
+    }
+
+    public Replay(String date, Board initialBoard, Deque<Step> game) {
+        this.date = date;
+        this.initialBoard = initialBoard;
         this.game = game;
     }
 
@@ -25,7 +35,85 @@ public class Replay {
         return this.date;
     }
 
+    public Board getInitialBoard() {
+        return this.initialBoard;
+    }
+
     public Deque<Step> getGame() {
         return this.game;
     }
+
+    // Class methods
+
+    /**
+     * Rebuilds the board as it was before a given step.
+     * 
+     * @param stepIndex The number of steps to be applied, the size of the log for the final board.
+     * @return A new board.
+     */
+    public Board getBoardAt(int stepIndex) {
+        Board b = new Board(this.initialBoard.getComplexity());
+        b.copyValues(this.initialBoard);
+
+        Iterator<Step> iterator = this.game.iterator();
+        for (int i = 0; i < stepIndex && iterator.hasNext(); i++) {
+            Step step = iterator.next();
+            b.updateField(step.getInputCoordinate(), step.getNewValue());
+        }
+        return b;
+    }
+
+    /**
+     * Converts a replay saved with a board snapshot in every step into the delta format.
+     * The initial board is the first snapshot and the outcome of every step is read from the next one.
+     * The last step has no snapshot after it. A game ends either with a full board or with a mistake,
+     * so the last step can only have been correct on the last empty field, and only with the number
+     * the final snapshot is missing there.
+     */
+    public void convertLegacySnapshots() {
+        if (this.initialBoard != null || this.game.isEmpty() || this.game.peekFirst().getBoardSnapshot() == null) {
+            return;
+        }
+        Step[] legacy = this.game.toArray(new Step[0]);
+        Deque<Step> converted = new ArrayDeque<Step>();
+        this.initialBoard = legacy[0].getBoardSnapshot();
+
+        for (int i = 0; i < legacy.length; i++) {
+            Coordinate c = legacy[i].getInputCoordinate();
+            Board before = legacy[i].getBoardSnapshot();
+            int previousValue = before.getValue(c);
+            int newValue;
+
+            if (i + 1 < legacy.length) {
+                newValue = legacy[i + 1].getBoardSnapshot().getValue(c);
+            } else {
+                boolean lastEmptyField = before.getEmptyCount() == 1 && previousValue == 0;
+                boolean correct = lastEmptyField && legacy[i].getInputValue() == missingValue(before, c);
+                newValue = correct ? legacy[i].getInputValue() : previousValue;
+            }
+            converted.add(new Step(c, legacy[i].getInputValue(), previousValue, newValue));
+        }
+        this.game = converted;
+    }
+
+    /**
+     * Finds the number missing from the row of a field. Only correct numbers are ever placed,
+     * so on a board with a single empty field it is the solution of that field.
+     * 
+     * @param b The board.
+     * @param c The empty field.
+     * @return The missing number, 0 if there is none.
+     */
+    private static int missingValue(Board b, Coordinate c) {
+        boolean[] present = new boolean[b.getComplexity() + 1];
+        for (int column = 0; column < b.getComplexity(); column++) {
+            present[b.get(c.getRow(), column)] = true;
+        }
+        for (int value = 1; value <= b.getComplexity(); value++) {
+            if (!present[value]) {
+                return value;
+            }
+        }
+        return 0;
+    }
 }
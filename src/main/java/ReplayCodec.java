@@ -0,0 +1,192 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Encodes replays into the compact binary replay format.
+ *
+ * A replay is stored as its date, the complexity, the keyframe interval K, the number of steps
+ * and a series of blocks. Every block starts with a keyframe, the full board as one byte per field,
+ * followed by the packed 16 bit records of up to K steps. The first keyframe is the initial board
+ * and keyframe b is the board after b * K steps, so every block but the last has the same length
+ * and the block holding any step can be found without reading the ones before it.
+ * A record holds the index of the field in its upper 10 bits, a mistake flag in bit 5
+ * and the entered value in the lower 5 bits, so the format supports boards of up to 31x31 fields.
+ *
+ * Replay files start with a header of the magic number and the format version, see ReplayJournal for the rest of the file.
+ *
+ * @author László Tárkányi
+ */
+public class ReplayCodec {
+    public static final int MAGIC = 0x53444B52; // "SDKR"
+    public static final int VERSION = 3;
+    public static final int HEADER_SIZE = 6;
+
+    private static final int VALUE_BITS = 5;
+    private static final int VALUE_MASK = (1 << VALUE_BITS) - 1;
+    private static final int MISTAKE_FLAG = 1 << VALUE_BITS;
+    private static final int INDEX_SHIFT = VALUE_BITS + 1;
+    private static final int MAX_COMPLEXITY = 31;
+    private static final int MIN_KEYFRAME_INTERVAL = 16;
+
+    /**
+     * Reads and checks the header of a replay file.
+     *
+     * @param in The source.
+     * @return The format version of the file.
+     */
+    public static int readHeader(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a replay file");
+        }
+        int version = in.readUnsignedShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported replay file version " + version);
+        }
+        return version;
+    }
+
+    /**
+     * Picks the number of steps between two keyframes, so that a keyframe
+     * costs about as much space as the steps after it.
+     *
+     * @param complexity The length of one side of the board.
+     * @return The keyframe interval.
+     */
+    public static int keyframeInterval(int complexity) {
+        return Math.max(MIN_KEYFRAME_INTERVAL, complexity * complexity / 4);
+    }
+
+    /**
+     * Encodes a single replay into a byte array.
+     *
+     * @param replay The replay to be encoded.
+     * @return The encoded replay.
+     */
+    public static byte[] encode(Replay replay) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeReplay(out, replay);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a single replay from a byte array.
+     *
+     * @param bytes The encoded replay.
+     * @return The replay.
+     */
+    public static Replay decode(byte[] bytes) throws IOException {
+        return readReplay(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Writes a single replay.
+     *
+     * @param out The destination.
+     * @param replay The replay to be written.
+     */
+    public static void writeReplay(DataOutput out, Replay replay) throws IOException {
+        Board initialBoard = replay.getInitialBoard();
+        int complexity = initialBoard.getComplexity();
+        if (complexity > MAX_COMPLEXITY) {
+            throw new IOException("Boards larger than " + MAX_COMPLEXITY + "x" + MAX_COMPLEXITY + " cannot be saved");
+        }
+        int interval = keyframeInterval(complexity);
+
+        out.writeUTF(replay.getDate());
+        out.writeByte(complexity);
+        out.writeShort(interval);
+        out.writeInt(replay.getGame().size());
+
+        Board board = new Board(complexity);
+        board.copyValues(initialBoard);
+        writeBoard(out, board);
+
+        int stepIndex = 0;
+        for (Step step : replay.getGame()) {
+            if (stepIndex > 0 && stepIndex % interval == 0) {
+                writeBoard(out, board);
+            }
+            out.writeShort(packStep(step, complexity));
+            board.updateField(step.getInputCoordinate(), step.getNewValue());
+            stepIndex++;
+        }
+    }
+
+    /**
+     * Reads a single replay, the previous value of every step is restored
+     * by applying the steps to the initial board one by one.
+     *
+     * @param in The source.
+     * @return The replay.
+     */
+    public static Replay readReplay(DataInput in) throws IOException {
+        String date = in.readUTF();
+        int complexity = in.readUnsignedByte();
+        int interval = in.readUnsignedShort();
+        int stepCount = in.readInt();
+
+        Board initialBoard = readBoard(in, complexity);
+        Board board = new Board(complexity);
+        board.copyValues(initialBoard);
+        Deque<Step> game = new ArrayDeque<Step>(stepCount);
+
+        for (int i = 0; i < stepCount; i++) {
+            if (i > 0 && i % interval == 0) {
+                // the board is rebuilt from the steps, the keyframe is only needed for seeking
+                in.skipBytes(complexity * complexity);
+            }
+            Step step = unpackStep(in.readUnsignedShort(), board);
+            board.updateField(step.getInputCoordinate(), step.getNewValue());
+            game.add(step);
+        }
+        return new Replay(date, initialBoard, game);
+    }
+
+    private static void writeBoard(DataOutput out, Board board) throws IOException {
+        int cellCount = board.getComplexity() * board.getComplexity();
+        for (int i = 0; i < cellCount; i++) {
+            out.writeByte(board.get(i));
+        }
+    }
+
+    private static Board readBoard(DataInput in, int complexity) throws IOException {
+        Board board = new Board(complexity);
+        for (int i = 0; i < complexity * complexity; i++) {
+            board.set(i, in.readUnsignedByte());
+        }
+        return board;
+    }
+
+    /**
+     * Packs a step into a 16 bit record.
+     */
+    static int packStep(Step step, int complexity) {
+        Coordinate c = step.getInputCoordinate();
+        int index = c.getRow() * complexity + c.getColumn();
+        return (index << INDEX_SHIFT) | (step.isMistake() ? MISTAKE_FLAG : 0) | step.getInputValue();
+    }
+
+    /**
+     * Unpacks a 16 bit record into a step.
+     *
+     * @param record The packed step.
+     * @param board The board before the step, used for the previous value of the field.
+     */
+    static Step unpackStep(int record, Board board) {
+        int index = record >>> INDEX_SHIFT;
+        int value = record & VALUE_MASK;
+        int previousValue = board.get(index);
+        int newValue = (record & MISTAKE_FLAG) != 0 ? previousValue : value;
+        Coordinate c = new Coordinate(index / board.getComplexity(), index % board.getComplexity());
+        return new Step(c, value, previousValue, newValue);
+    }
+}
@@ -0,0 +1,211 @@
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.NoSuchElementException;
+
+/**
+ * Walks the steps of a saved replay forwards, backwards or to any step, decoding only what it needs.
+ * Only the board at the current step and the block of the replay it lies in are kept in memory,
+ * so a replay of any length can be watched in constant memory and starts without decoding the rest of it.
+ * Moving to a step loads the keyframe before it and applies at most one keyframe interval of steps,
+ * see ReplayCodec for the layout. The replay it reads from is never modified.
+ *
+ * @author László Tárkányi
+ */
+public class ReplayCursor implements Closeable {
+    // Instance variables
+
+    private final FileChannel channel;
+    private final String date;
+    private final int complexity;
+    private final int cellCount;
+    private final int interval;
+    private final int stepCount;
+    private final long blocksPosition;
+    private final int blockSize;
+    private final ByteBuffer block;
+    private final Board board;
+    private int loadedBlock;
+    private int stepIndex;
+    private Step lastStep;
+
+    // Constructor
+
+    /**
+     * Reads the date, the size and the number of steps of a replay.
+     *
+     * @param channel The replay file, closed with the cursor.
+     * @param position The position of the encoded replay in the file.
+     */
+    public ReplayCursor(FileChannel channel, long position) throws IOException {
+        this.channel = channel;
+
+        // the date is stored with its length in front of it
+        ByteBuffer dateLength = ByteBuffer.allocate(2);
+        readFully(dateLength, position);
+        ByteBuffer head = ByteBuffer.allocate(2 + (dateLength.getShort(0) & 0xFFFF) + 7);
+        readFully(head, position);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(head.array()));
+
+        this.date = in.readUTF();
+        this.complexity = in.readUnsignedByte();
+        this.interval = in.readUnsignedShort();
+        this.stepCount = in.readInt();
+        this.cellCount = this.complexity * this.complexity;
+        this.blocksPosition = position + head.capacity();
+        this.blockSize = this.cellCount + 2 * this.interval;
+
+        this.block = ByteBuffer.allocate(this.blockSize);
+        this.board = new Board(this.complexity);
+        this.loadedBlock = -1;
+        seek(0);
+    }
+
+    // Accessors
+
+    public String getDate() {
+        return this.date;
+    }
+
+    public int getComplexity() {
+        return this.complexity;
+    }
+
+    /**
+     * @return The board as it is after the steps up to the current one, updated on every move.
+     */
+    public Board getBoard() {
+        return this.board;
+    }
+
+    public int getStepCount() {
+        return this.stepCount;
+    }
+
+    /**
+     * @return The number of steps applied to the board.
+     */
+    public int getStepIndex() {
+        return this.stepIndex;
+    }
+
+    /**
+     * @return The step that led to the current board, or null at the start of the replay.
+     */
+    public Step getLastStep() {
+        return this.lastStep;
+    }
+
+    // Class methods
+
+    public boolean hasNext() {
+        return this.stepIndex < this.stepCount;
+    }
+
+    public boolean hasPrevious() {
+        return this.stepIndex > 0;
+    }
+
+    /**
+     * Applies the next step to the board.
+     *
+     * @return The step, with the value of the field before it.
+     */
+    public Step next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException("End of replay");
+        }
+        int blockIndex = this.stepIndex / this.interval;
+        if (blockIndex != this.loadedBlock) {
+            // the keyframe of the block is the board as it is now
+            loadBlock(blockIndex);
+        }
+        applyRecord(this.stepIndex - blockIndex * this.interval);
+        return this.lastStep;
+    }
+
+    /**
+     * Takes back the last step applied to the board.
+     *
+     * @return The step that was taken back.
+     */
+    public Step previous() throws IOException {
+        if (!hasPrevious()) {
+            throw new NoSuchElementException("Start of replay");
+        }
+        Step step = this.lastStep;
+        seek(this.stepIndex - 1);
+        return step;
+    }
+
+    /**
+     * Moves the board to the state after a given number of steps.
+     * The keyframe before the step is loaded and the steps after it are applied,
+     * which is at most one keyframe interval of steps whatever the length of the replay.
+     *
+     * @param target The number of steps to be applied, 0 for the initial board.
+     */
+    public void seek(int target) throws IOException {
+        if (target < 0 || target > this.stepCount) {
+            throw new IndexOutOfBoundsException("Step " + target + " of " + this.stepCount);
+        }
+
+        // the block holding the step before the target, so the last step is known after the move
+        int blockIndex = target == 0 ? 0 : (target - 1) / this.interval;
+        loadBlock(blockIndex);
+        for (int i = 0; i < this.cellCount; i++) {
+            this.board.set(i, this.block.get(i));
+        }
+        this.stepIndex = blockIndex * this.interval;
+        this.lastStep = null;
+
+        while (this.stepIndex < target) {
+            applyRecord(this.stepIndex - blockIndex * this.interval);
+        }
+    }
+
+    public void toStart() throws IOException {
+        seek(0);
+    }
+
+    public void toEnd() throws IOException {
+        seek(this.stepCount);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private void applyRecord(int recordIndex) {
+        int record = this.block.getShort(this.cellCount + 2 * recordIndex) & 0xFFFF;
+        this.lastStep = ReplayCodec.unpackStep(record, this.board);
+        this.board.updateField(this.lastStep.getInputCoordinate(), this.lastStep.getNewValue());
+        this.stepIndex++;
+    }
+
+    /**
+     * Reads the keyframe and the step records of a block, the last block may be shorter than the others.
+     */
+    private void loadBlock(int blockIndex) throws IOException {
+        if (blockIndex == this.loadedBlock) {
+            return;
+        }
+        int records = Math.min(this.interval, this.stepCount - blockIndex * this.interval);
+        this.block.clear();
+        this.block.limit(this.cellCount + 2 * Math.max(records, 0));
+        readFully(this.block, this.blocksPosition + (long) blockIndex * this.blockSize);
+        this.loadedBlock = blockIndex;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the replay file");
+            }
+        }
+    }
+}
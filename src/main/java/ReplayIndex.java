@@ -0,0 +1,227 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * A side file of the replay journal holding a fixed-size summary of every replay,
+ * so that the replay menu can be listed without decoding a single replay.
+ *
+ * The file starts with a 16 byte header of a magic number, the format version, the entry size
+ * and the length of the journal it describes, followed by one 64 byte entry per replay:
+ * the position of the replay in the journal, the number of steps, the number of mistakes,
+ * the complexity, whether the game was solved and the date of the game.
+ * The entries are read through a memory mapping of the file.
+ *
+ * The index can always be rebuilt from the journal, it is rebuilt whenever it is missing
+ * or does not describe the journal as it is, e.g. after a crash between the two writes of a save.
+ *
+ * @author László Tárkányi
+ */
+public class ReplayIndex {
+    // Instance variables
+
+    private final Path path;
+    private final ReplayJournal journal;
+    private static final int MAGIC = 0x53444B49; // "SDKI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int JOURNAL_SIZE_POSITION = 8;
+    private static final int ENTRY_SIZE = 64;
+    private static final int DATE_POSITION = 20;
+    private static final int MAX_DATE_LENGTH = ENTRY_SIZE - DATE_POSITION;
+    private static final String REBUILD_SUFFIX = ".rebuild";
+
+    // Constructor
+
+    /**
+     * Opens the index of a journal, rebuilding it if it is out of date.
+     *
+     * @param path The location of the index file.
+     * @param journal The journal described by the index.
+     */
+    public ReplayIndex(Path path, ReplayJournal journal) throws IOException {
+        this.path = path;
+        this.journal = journal;
+        if (!isCurrent()) {
+            rebuild();
+        }
+    }
+
+    // Class methods
+
+    /**
+     * Lists the summaries of the replays, rebuilding the index first if the journal has changed.
+     *
+     * @return The summaries in the order the replays were saved.
+     */
+    public ArrayList<ReplaySummary> list() throws IOException {
+        if (!isCurrent()) {
+            rebuild();
+        }
+
+        FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ);
+        try {
+            int count = (int) ((channel.size() - HEADER_SIZE) / ENTRY_SIZE);
+            ArrayList<ReplaySummary> summaries = new ArrayList<ReplaySummary>(count);
+            if (count == 0) {
+                return summaries;
+            }
+
+            MappedByteBuffer entries = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, (long) count * ENTRY_SIZE);
+            byte[] date = new byte[MAX_DATE_LENGTH];
+            for (int i = 0; i < count; i++) {
+                int base = i * ENTRY_SIZE;
+                int dateLength = entries.get(base + 18) & 0xFF;
+                entries.position(base + DATE_POSITION);
+                entries.get(date, 0, dateLength);
+
+                summaries.add(new ReplaySummary(
+                    entries.getLong(base),
+                    new String(date, 0, dateLength, StandardCharsets.UTF_8),
+                    entries.get(base + 16) & 0xFF,
+                    entries.getInt(base + 8),
+                    entries.getInt(base + 12),
+                    entries.get(base + 17) != 0));
+            }
+            return summaries;
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Adds the entry of a replay that has just been appended to the journal.
+     * If the index did not describe the journal before the append, it is rebuilt instead.
+     *
+     * @param summary The summary of the appended replay.
+     */
+    public void add(ReplaySummary summary) throws IOException {
+        if (!Files.exists(this.path) || readJournalSize() != summary.getOffset()) {
+            rebuild();
+            return;
+        }
+
+        FileChannel channel = FileChannel.open(this.path, StandardOpenOption.WRITE);
+        try {
+            // the entry goes first, a crash before the header is updated only causes a rebuild
+            writeFully(channel, encodeEntry(summary), channel.size());
+            writeFully(channel, journalSize(this.journal.size()), JOURNAL_SIZE_POSITION);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Summarises every replay of the journal into a new index file that replaces the old one in one move.
+     */
+    public void rebuild() throws IOException {
+        Path rebuilt = this.path.resolveSibling(this.path.getFileName() + REBUILD_SUFFIX);
+        FileChannel channel = FileChannel.open(rebuilt, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            long journalSize = this.journal.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putShort((short) VERSION);
+            header.putShort((short) ENTRY_SIZE);
+            header.putLong(journalSize);
+            header.flip();
+            writeFully(channel, header, 0);
+
+            long position = HEADER_SIZE;
+            for (long offset : this.journal.readOffsets()) {
+                writeFully(channel, encodeEntry(ReplaySummary.of(this.journal.readAt(offset), offset)), position);
+                position += ENTRY_SIZE;
+            }
+        } finally {
+            channel.close();
+        }
+        Files.move(rebuilt, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Checks that the index file is well formed and describes the journal as it is.
+     */
+    private boolean isCurrent() throws IOException {
+        if (!Files.exists(this.path)) {
+            return false;
+        }
+        long size = Files.size(this.path);
+        if (size < HEADER_SIZE || (size - HEADER_SIZE) % ENTRY_SIZE != 0) {
+            return false;
+        }
+
+        FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            return header.getInt(0) == MAGIC
+                && header.getShort(4) == VERSION
+                && header.getShort(6) == ENTRY_SIZE
+                && header.getLong(JOURNAL_SIZE_POSITION) == this.journal.size();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private long readJournalSize() throws IOException {
+        FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ);
+        try {
+            ByteBuffer journalSize = ByteBuffer.allocate(8);
+            readFully(channel, journalSize, JOURNAL_SIZE_POSITION);
+            return journalSize.getLong(0);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static ByteBuffer journalSize(long size) {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.putLong(size);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static ByteBuffer encodeEntry(ReplaySummary summary) {
+        byte[] date = summary.getDate().getBytes(StandardCharsets.UTF_8);
+        int dateLength = Math.min(date.length, MAX_DATE_LENGTH);
+        // a date that does not fit is cut before the first byte of a character, never inside one
+        if (dateLength < date.length) {
+            while (dateLength > 0 && (date[dateLength] & 0xC0) == 0x80) {
+                dateLength--;
+            }
+        }
+
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+        entry.putLong(summary.getOffset());
+        entry.putInt(summary.getStepCount());
+        entry.putInt(summary.getMistakes());
+        entry.put((byte) summary.getComplexity());
+        entry.put((byte) (summary.isSolved() ? 1 : 0));
+        entry.put((byte) dateLength);
+        entry.put((byte) 0);
+        entry.put(date, 0, dateLength);
+        entry.clear();
+        return entry;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the replay index");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event covering the saving, loading or opening of one replay by ReplayManagerSingleton.
+ *
+ * @author László Tárkányi
+ */
+@Name("sudoku.ReplayIo")
+@Label("Replay I/O")
+@Category({"Sudoku", "Replays"})
+@Description("Serialization of a replay to or from the replay file")
+public class ReplayIoEvent extends Event {
+    @Label("Operation")
+    @Description("save, load or open")
+    String operation;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Steps")
+    int steps;
+}
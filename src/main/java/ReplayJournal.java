@@ -0,0 +1,319 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only replay file.
+ *
+ * The file starts with the header of ReplayCodec, followed by one record per replay.
+ * A record is the length of the encoded replay, its CRC32 checksum and the encoded replay itself.
+ * Saving a game only appends its record and forces it to the disk, the earlier records are never rewritten.
+ * A record cut short by a crash, or one whose checksum does not match, is cut off the end of the file
+ * when the journal is opened. A file of any other format version is refused,
+ * and a file deleted while the journal is open is created again on the next append.
+ *
+ * @author László Tárkányi
+ */
+public class ReplayJournal {
+    // Instance variables
+
+    private final Path path;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    // Constructor
+
+    /**
+     * Opens a journal, creating the file if it does not exist yet.
+     *
+     * @param path The location of the replay file.
+     */
+    public ReplayJournal(Path path) throws IOException {
+        this.path = path;
+        open();
+    }
+
+    // Accessors
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * @return The length of the file in bytes, 0 if it does not exist.
+     */
+    public long size() throws IOException {
+        return Files.exists(this.path) ? Files.size(this.path) : 0;
+    }
+
+    // Class methods
+
+    /**
+     * Appends a replay to the end of the file and waits until it is on the disk.
+     *
+     * @param replay The replay to be saved.
+     * @return The position of the record in the file.
+     */
+    public long append(Replay replay) throws IOException {
+        ArrayList<Replay> replays = new ArrayList<Replay>(1);
+        replays.add(replay);
+        return appendAll(replays);
+    }
+
+    /**
+     * Appends replays to the end of the file and waits until they are on the disk.
+     * If any of them cannot be written, the file is cut back to its length before the call.
+     *
+     * @param replays The replays to be saved, in order.
+     * @return The position of the first record in the file.
+     */
+    public long appendAll(List<Replay> replays) throws IOException {
+        if (!Files.exists(this.path)) {
+            create(this.path);
+        }
+        FileChannel channel = FileChannel.open(this.path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try {
+            long position = channel.size();
+            try {
+                for (Replay replay : replays) {
+                    writeFully(channel, encodeRecord(replay));
+                }
+                channel.force(true);
+            } catch (IOException | RuntimeException e) {
+                // cut off the part of the batch that was written, so the next append does not follow a torn record
+                try {
+                    channel.truncate(position);
+                    channel.position(position);
+                } catch (IOException truncateError) {
+                    e.addSuppressed(truncateError);
+                }
+                throw e;
+            }
+            return position;
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads every replay of the file.
+     *
+     * @return The replays in the order they were saved.
+     */
+    public ArrayList<Replay> readAll() throws IOException {
+        ArrayList<Replay> replays = new ArrayList<Replay>();
+        if (!Files.exists(this.path)) {
+            return replays;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.path)));
+        try {
+            ReplayCodec.readHeader(in);
+            long remaining = Files.size(this.path) - ReplayCodec.HEADER_SIZE;
+
+            while (remaining >= RECORD_HEADER_SIZE) {
+                int length = in.readInt();
+                in.readInt(); // checksum, verified when the journal was opened
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                replays.add(ReplayCodec.decode(payload));
+                remaining -= RECORD_HEADER_SIZE + length;
+            }
+        } finally {
+            in.close();
+        }
+        return replays;
+    }
+
+    /**
+     * Reads a single replay without reading the rest of the file.
+     *
+     * @param offset The position of the record in the file, as returned by append.
+     * @return The replay.
+     */
+    public Replay readAt(long offset) throws IOException {
+        FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+            readFully(channel, header, offset);
+            int length = header.getInt(0);
+            if (length < 0 || offset + RECORD_HEADER_SIZE + length > channel.size()) {
+                throw new IOException("No replay record at " + offset);
+            }
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, offset + RECORD_HEADER_SIZE);
+            return ReplayCodec.decode(payload.array());
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads the length of a single record.
+     *
+     * @param offset The position of the record in the file, as returned by append.
+     * @return The number of bytes of the record, including its length and checksum.
+     */
+    public int recordSize(long offset) throws IOException {
+        FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+            readFully(channel, header, offset);
+            return RECORD_HEADER_SIZE + header.getInt(0);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Opens a cursor that reads the steps of a single replay as they are needed.
+     *
+     * @param offset The position of the record in the file, as returned by append.
+     * @return A cursor at the start of the replay, it has to be closed.
+     */
+    public ReplayCursor openCursor(long offset) throws IOException {
+        FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ);
+        try {
+            return new ReplayCursor(channel, offset + RECORD_HEADER_SIZE);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Collects the positions of the records, reading only their lengths.
+     *
+     * @return The position of every record in the file, in order.
+     */
+    public ArrayList<Long> readOffsets() throws IOException {
+        ArrayList<Long> offsets = new ArrayList<Long>();
+        if (!Files.exists(this.path)) {
+            return offsets;
+        }
+
+        FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+            long size = channel.size();
+            long position = ReplayCodec.HEADER_SIZE;
+
+            while (size - position >= RECORD_HEADER_SIZE) {
+                header.clear();
+                readFully(channel, header, position);
+                offsets.add(position);
+                position += RECORD_HEADER_SIZE + header.getInt(0);
+            }
+        } finally {
+            channel.close();
+        }
+        return offsets;
+    }
+
+    /**
+     * Creates the file or checks its records, cutting off a broken record at the end.
+     */
+    private void open() throws IOException {
+        // a file without a complete header holds no replays yet
+        if (!Files.exists(this.path) || Files.size(this.path) < ReplayCodec.HEADER_SIZE) {
+            create(this.path);
+            return;
+        }
+
+        FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            ReplayCodec.readHeader(in);
+
+            long size = channel.size();
+            long valid = scanRecords(in, size);
+            if (valid < size) {
+                channel.truncate(valid);
+                channel.force(true);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Walks the records and verifies their checksums.
+     *
+     * @return The position after the last intact record.
+     */
+    private long scanRecords(DataInputStream in, long size) throws IOException {
+        long position = ReplayCodec.HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        byte[] payload = new byte[0];
+
+        while (size - position >= RECORD_HEADER_SIZE) {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length < 0 || length > size - position - RECORD_HEADER_SIZE) {
+                break;
+            }
+
+            if (payload.length < length) {
+                payload = new byte[length];
+            }
+            in.readFully(payload, 0, length);
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private static void create(Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(ReplayCodec.HEADER_SIZE);
+        header.putInt(ReplayCodec.MAGIC);
+        header.putShort((short) ReplayCodec.VERSION);
+        header.flip();
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            writeFully(channel, header);
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static ByteBuffer encodeRecord(Replay replay) throws IOException {
+        byte[] payload = ReplayCodec.encode(replay);
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        record.putInt(payload.length);
+        record.putInt((int) crc.getValue());
+        record.put(payload);
+        record.flip();
+        return record;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the replay file");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -1,96 +1,286 @@
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 
 /**
  * Handles file I/O.
+ * Replays are kept in an append-only binary file, see ReplayJournal and ReplayCodec for its layout,
+ * with an index of their summaries next to it, see ReplayIndex.
+ *
+ * The instance is shared by every session of the game. Saving and listing replays take turns,
+ * as both may write the index, while loading and opening replays need no lock: a record never
+ * changes once it is appended and every read opens a channel of its own.
+ * A ReentrantLock is used instead of synchronized methods, so that a session waiting for the disk
+ * on a virtual thread does not hold on to its carrier thread.
  * 
  * @author Laszlo Tarkanyi
  */
 public class ReplayManagerSingleton {
     // Instance variables
 
-    private ArrayList<Replay> replays;
-    private final Gson gson;
-    private static final String FILEPATH = "replays.json";
+    private ReplayJournal journal;
+    private ReplayIndex index;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private static final String FILEPATH = "replays.dat";
+    private static final String INDEX_FILEPATH = "replays.idx";
+    private static final String LEGACY_FILEPATH = "replays.json";
+    private static final String MIGRATING_SUFFIX = ".migrating";
+    private static final String MIGRATED_SUFFIX = ".migrated";
     private static final Type REPLAY_TYPE = new TypeToken<ArrayList<Replay>>() {}.getType();
-    private static ReplayManagerSingleton instance;
+    private static final Histogram SAVE_LATENCY = MetricsRegistry.getInstance().histogram("replay.save.latency");
+    private static final Histogram LOAD_LATENCY = MetricsRegistry.getInstance().histogram("replay.load.latency");
+    private static final Histogram OPEN_LATENCY = MetricsRegistry.getInstance().histogram("replay.open.latency");
 
     // Constructor
 
     private ReplayManagerSingleton() {
-        GsonBuilder builder = new GsonBuilder();
-        builder.setPrettyPrinting();
-        this.gson = builder.create();
-        readReplaysFromFile();
+        try {
+            this.journal = new ReplayJournal(Paths.get(FILEPATH));
+        } catch (IOException e) {
+            System.out.println("An error occurred.");
+            e.printStackTrace();
+        }
+        migrateLegacyFile();
+
+        try {
+            if (this.journal != null) {
+                this.index = new ReplayIndex(Paths.get(INDEX_FILEPATH), this.journal);
+            }
+        } catch (IOException e) {
+            System.out.println("An error occurred.");
+            e.printStackTrace();
+        }
     }
     
+    /**
+     * Gets the shared instance, opening the replay file on first use.
+     * The instance is created by the class loader, which makes it safe to call from any thread.
+     * 
+     * @return The replay manager.
+     */
     public static ReplayManagerSingleton getInstance() {
-        if(instance == null) {
-            instance = new ReplayManagerSingleton();
-        }
-        return instance;
-    }
-
-    // Accessor
-
-    public ArrayList<Replay> getReplays() {
-        return this.replays;
+        return Holder.INSTANCE;
     }
 
     // Class methods
 
     /**
      * Processes the steps log and appends it to the replay log file.
+     * Only the new replay is written, the replays saved earlier are left untouched.
      * 
+     * @param initialBoard The board at the start of the game.
      * @param steps Game log storing the user's steps throughout the game.
      */
-    public void saveReplayToFile(Deque<Step> steps) {
+    public void saveReplayToFile(Board initialBoard, Deque<Step> steps) {
+        if (this.journal == null) {
+            return;
+        }
+        ReplayIoEvent event = new ReplayIoEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Replay replay = new Replay(initialBoard, steps);
+
+        this.writeLock.lock();
+        try {
+            long offset = this.journal.append(replay);
+            if (this.index != null) {
+                this.index.add(ReplaySummary.of(replay, offset));
+            }
+            SAVE_LATENCY.recordSince(start);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = "save";
+                event.bytes = this.journal.size() - offset;
+                event.steps = steps.size();
+                event.commit();
+            }
+        } catch (IOException e) {
+            System.out.println("An error occurred.");
+            e.printStackTrace();
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Lists the previously played games from the index, without loading any of them.
+     * 
+     * @return The summaries of all replays, empty if there are none.
+     */
+    public ArrayList<ReplaySummary> listReplays() {
+        // listing rebuilds the index if the journal has changed
+        this.writeLock.lock();
+        try {
+            if (this.index != null) {
+                return this.index.list();
+            }
+        } catch (IOException e) {
+            System.out.println("An error occurred.");
+            e.printStackTrace();
+        } finally {
+            this.writeLock.unlock();
+        }
+        return new ArrayList<ReplaySummary>();
+    }
+
+    /**
+     * Loads a single replay from the replay log file.
+     * 
+     * @param summary The summary of the replay, as listed by listReplays.
+     * @return The replay, or null if it could not be read.
+     */
+    public Replay loadReplay(ReplaySummary summary) {
+        try {
+            ReplayIoEvent event = new ReplayIoEvent();
+            event.begin();
+            long start = System.nanoTime();
+            Replay replay = this.journal.readAt(summary.getOffset());
+            LOAD_LATENCY.recordSince(start);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = "load";
+                event.bytes = this.journal.recordSize(summary.getOffset());
+                event.steps = summary.getStepCount();
+                event.commit();
+            }
+            return replay;
+        } catch (IOException e) {
+            System.out.println("An error occurred.");
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Opens a single replay of the replay log file for playback, its steps are read as they are played.
+     * 
+     * @param summary The summary of the replay, as listed by listReplays.
+     * @return A cursor at the start of the replay that has to be closed, or null if it could not be opened.
+     */
+    public ReplayCursor openReplay(ReplaySummary summary) {
         try {
-            File replayFile = new File(FILEPATH);
-            FileWriter writer = new FileWriter(replayFile);
+            ReplayIoEvent event = new ReplayIoEvent();
+            event.begin();
+            long start = System.nanoTime();
+            ReplayCursor cursor = this.journal.openCursor(summary.getOffset());
+            OPEN_LATENCY.recordSince(start);
 
-            if (this.replays == null) {
-                this.replays = new ArrayList<Replay>();
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = "open";
+                event.bytes = this.journal.recordSize(summary.getOffset());
+                event.steps = summary.getStepCount();
+                event.commit();
             }
-            this.replays.add(new Replay(steps));
-            writer.write(gson.toJson(this.replays));
-            writer.close();
-          } catch (IOException e) {
+            return cursor;
+        } catch (IOException e) {
             System.out.println("An error occurred.");
             e.printStackTrace();
-          }
+        }
+        return null;
     }
 
     /**
-     * Retrieves the game logs from the replay log file.
+     * Retrieves every game log from the replay log file.
      * 
-     * @return A list of all replays.
+     * @return A list of all replays, or null if there are none.
      */
     public ArrayList<Replay> readReplaysFromFile() {
+        ArrayList<Replay> replays = null;
+        // a record being appended would be read half-written
+        this.writeLock.lock();
         try {
-            File replayFile = new File(FILEPATH);
-            if (replayFile.exists() && !replayFile.isDirectory()) {
-                FileReader reader = new FileReader(replayFile);
-                this.replays = gson.fromJson(new JsonReader(reader), REPLAY_TYPE);
-                reader.close();
-            } else {
-                this.replays = null;
+            ArrayList<Replay> saved = this.journal != null ? this.journal.readAll() : null;
+            if (saved != null && !saved.isEmpty()) {
+                replays = saved;
             }
         } catch (IOException e) {
             System.out.println("An error occurred.");
             e.printStackTrace();
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return replays;
+    }
+
+    /**
+     * Converts the JSON replay file of earlier versions into the binary one, once.
+     * The JSON file is first renamed with a suffix marking the migration as started, and only renamed
+     * again once its replays are on the disk. A migration that failed or was interrupted is retried on the next start,
+     * skipping the replays that already made it into the binary file, so that none of them is saved twice.
+     * A JSON file that cannot be parsed is reported and kept under its marked name.
+     */
+    private void migrateLegacyFile() {
+        File legacyFile = new File(LEGACY_FILEPATH);
+        File migratingFile = new File(LEGACY_FILEPATH + MIGRATING_SUFFIX);
+        if (this.journal == null || (!legacyFile.isFile() && !migratingFile.isFile())) {
+            return;
+        }
+
+        try {
+            if (!migratingFile.isFile()) {
+                Files.move(legacyFile.toPath(), migratingFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            GsonBuilder builder = new GsonBuilder();
+            builder.registerTypeAdapter(Board.class, new BoardTypeAdapter());
+            Gson gson = builder.create();
+
+            ArrayList<Replay> legacyReplays;
+            try (FileReader reader = new FileReader(migratingFile)) {
+                legacyReplays = gson.fromJson(new JsonReader(reader), REPLAY_TYPE);
+            }
+
+            // the records of an interrupted migration, counted by their encoding
+            HashMap<ByteBuffer, Integer> migrated = new HashMap<ByteBuffer, Integer>();
+            for (Replay replay : this.journal.readAll()) {
+                migrated.merge(ByteBuffer.wrap(ReplayCodec.encode(replay)), 1, Integer::sum);
+            }
+
+            ArrayList<Replay> converted = new ArrayList<Replay>();
+            if (legacyReplays != null) {
+                for (Replay replay : legacyReplays) {
+                    replay.convertLegacySnapshots();
+                    if (replay.getInitialBoard() == null) {
+                        continue;
+                    }
+                    ByteBuffer encoded = ByteBuffer.wrap(ReplayCodec.encode(replay));
+                    if (migrated.getOrDefault(encoded, 0) > 0) {
+                        migrated.merge(encoded, -1, Integer::sum);
+                    } else {
+                        converted.add(replay);
+                    }
+                }
+            }
+            this.journal.appendAll(converted);
+
+            Files.move(migratingFile.toPath(), new File(LEGACY_FILEPATH + MIGRATED_SUFFIX).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | JsonParseException e) {
+            System.out.println("An error occurred.");
+            e.printStackTrace();
         }
+    }
 
-        return this.replays;
+    private static class Holder {
+        private static final ReplayManagerSingleton INSTANCE = new ReplayManagerSingleton();
     }
-}
\ No newline at end of file
+}
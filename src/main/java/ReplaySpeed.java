@@ -0,0 +1,21 @@
+/**
+ * The playback speeds of a replay, defined by the delay between two steps.
+ * 
+ * @author László Tárkányi
+ */
+public enum ReplaySpeed {
+    SLOW (3000),
+    NORMAL (1000),
+    FAST (250),
+    INSTANT (0);
+
+    private final int delay; // ms
+
+    ReplaySpeed (int delay) {
+        this.delay = delay;
+    }
+
+    public int getDelay() {
+        return this.delay;
+    }
+}
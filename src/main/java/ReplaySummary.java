@@ -0,0 +1,81 @@
+/**
+ * The details of a saved replay that the replay menu lists,
+ * with the position of the replay in the replay file so that it can be loaded when chosen.
+ *
+ * @author László Tárkányi
+ */
+public class ReplaySummary {
+    // Instance variables
+
+    private final long offset;
+    private final String date;
+    private final int complexity;
+    private final int stepCount;
+    private final int mistakes;
+    private final boolean solved;
+
+    // Constructors
+
+    public ReplaySummary(long offset, String date, int complexity, int stepCount, int mistakes, boolean solved) {
+        this.offset = offset;
+        this.date = date;
+        this.complexity = complexity;
+        this.stepCount = stepCount;
+        this.mistakes = mistakes;
+        this.solved = solved;
+    }
+
+    /**
+     * Summarises a replay by walking its steps once.
+     *
+     * @param replay The replay to be summarised.
+     * @param offset The position of the replay in the replay file.
+     * @return The summary of the replay.
+     */
+    public static ReplaySummary of(Replay replay, long offset) {
+        Board initialBoard = replay.getInitialBoard();
+        int emptyCount = initialBoard.getEmptyCount();
+        int mistakes = 0;
+
+        for (Step step : replay.getGame()) {
+            if (step.isMistake()) {
+                mistakes++;
+            }
+            if (step.getPreviousValue() == 0 && step.getNewValue() != 0) {
+                emptyCount--;
+            } else if (step.getPreviousValue() != 0 && step.getNewValue() == 0) {
+                emptyCount++;
+            }
+        }
+        return new ReplaySummary(offset, replay.getDate(), initialBoard.getComplexity(), replay.getGame().size(), mistakes, emptyCount == 0);
+    }
+
+    // Accessors
+
+    public long getOffset() {
+        return this.offset;
+    }
+
+    public String getDate() {
+        return this.date;
+    }
+
+    public int getComplexity() {
+        return this.complexity;
+    }
+
+    public int getStepCount() {
+        return this.stepCount;
+    }
+
+    public int getMistakes() {
+        return this.mistakes;
+    }
+
+    /**
+     * @return The game ended with a full board or not, a game that is not solved ended with a mistake.
+     */
+    public boolean isSolved() {
+        return this.solved;
+    }
+}
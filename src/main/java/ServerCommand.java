@@ -0,0 +1,213 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The "server" command, which lets any number of players play at the same time over the network:
+ *
+ *     server --port 2424 --host 127.0.0.1 --max-sessions 10000 --idle-timeout 30
+ *
+ * Every connection gets the menus of the console game, one word of input per line,
+ * so a plain telnet or netcat client is enough to play. Each session runs on a thread of its own,
+ * a virtual thread on Java 21 and later, so thousands of players waiting for input only cost their buffers.
+ * On earlier versions every session runs on a platform thread with a small stack.
+ * Sessions share the puzzle pool, the puzzle bank and the replays, which are saved when the server stops.
+ * The pool keeps more puzzles and refills them on more threads the more sessions are allowed.
+ * A session that fails is logged and its connection closed, without affecting the other sessions.
+ *
+ * @author László Tárkányi
+ */
+public class ServerCommand {
+    private static final int DEFAULT_PORT = 2424;
+    private static final int DEFAULT_MAX_SESSIONS = 10_000;
+    private static final int DEFAULT_IDLE_TIMEOUT = 30; // minutes
+    private static final int MAX_IDLE_TIMEOUT = Integer.MAX_VALUE / 60_000; // minutes, the longest socket timeout in ms
+    private static final int SESSIONS_PER_POOLED_PUZZLE = 50;
+    private static final int MIN_POOL_CAPACITY = 2; // puzzles per size and difficulty
+    private static final int MAX_POOL_CAPACITY = 64;
+    private static final String USAGE = "Usage: server [--port " + DEFAULT_PORT + "] [--host 127.0.0.1, 0.0.0.0 for every interface] "
+        + "[--max-sessions " + DEFAULT_MAX_SESSIONS + "] [--idle-timeout <minutes> up to " + MAX_IDLE_TIMEOUT + ", 0 for none]";
+    private static final int BACKLOG = 1024;
+    private static final long PLATFORM_STACK_SIZE = 256 * 1024; // bytes, the menus and the game only need a shallow stack
+    private static final LongAdder ACCEPTED = MetricsRegistry.getInstance().counter("server.sessions.accepted");
+    private static final LongAdder REFUSED = MetricsRegistry.getInstance().counter("server.sessions.refused");
+
+    // Class methods
+
+    /**
+     * Runs the server until the program is stopped.
+     *
+     * @param args The arguments of the program, starting with "server".
+     * @return The exit status: 0 when stopped, 1 if the port could not be opened, 2 if the arguments are wrong.
+     */
+    public static int run(String[] args) {
+        String host;
+        int port;
+        int maxSessions;
+        int idleTimeout;
+
+        try {
+            CommandLineOptions options = new CommandLineOptions(args);
+            host = options.getString("host", "127.0.0.1");
+            port = options.getInt("port", DEFAULT_PORT);
+            maxSessions = options.getInt("max-sessions", DEFAULT_MAX_SESSIONS);
+            idleTimeout = options.getInt("idle-timeout", DEFAULT_IDLE_TIMEOUT);
+            if (port < 0 || port > 65535 || maxSessions < 1 || idleTimeout < 0 || idleTimeout > MAX_IDLE_TIMEOUT) {
+                throw new IllegalArgumentException("The port must be between 0 and 65535, the number of sessions positive "
+                    + "and the timeout between 0 and " + MAX_IDLE_TIMEOUT + " minutes");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        ServerSocket server;
+        try {
+            server = new ServerSocket();
+            server.bind(new InetSocketAddress(host, port), BACKLOG);
+        } catch (IOException e) {
+            System.out.println("An error occurred.");
+            e.printStackTrace();
+            return 1;
+        }
+
+        int idleTimeoutMillis = idleTimeout * 60_000;
+        configurePuzzlePool(maxSessions);
+
+        Method virtualThreads = findVirtualThreadExecutor();
+        ExecutorService sessions = newSessionExecutor(virtualThreads);
+        AtomicInteger activeSessions = new AtomicInteger();
+
+        // stopping the program closes the socket, which ends the loop below,
+        // the puzzle pool saves itself with a shutdown hook of its own
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                System.out.println("An error occurred.");
+                e.printStackTrace();
+            }
+        }, "server-shutdown"));
+
+        System.err.println("Listening on " + server.getLocalSocketAddress() + " with "
+            + (virtualThreads != null ? "virtual threads" : "platform threads") + ", at most " + maxSessions + " sessions");
+
+        while (!server.isClosed()) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                if (!server.isClosed()) {
+                    System.out.println("An error occurred.");
+                    e.printStackTrace();
+                }
+                continue;
+            }
+
+            if (activeSessions.incrementAndGet() > maxSessions) {
+                activeSessions.decrementAndGet();
+                REFUSED.increment();
+                refuse(socket);
+                continue;
+            }
+            ACCEPTED.increment();
+            sessions.execute(() -> {
+                try {
+                    serve(socket, idleTimeoutMillis);
+                } finally {
+                    activeSessions.decrementAndGet();
+                }
+            });
+        }
+        return 0;
+    }
+
+    /**
+     * Leads the player of a connection through the game until they quit, disconnect or stay idle for too long.
+     * A game left unfinished is not saved, just like a game the player quits.
+     */
+    private static void serve(Socket socket, int idleTimeoutMillis) {
+        SocketAddress player = socket.getRemoteSocketAddress();
+        try (socket; Terminal terminal = new Terminal(socket.getInputStream(), socket.getOutputStream())) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(idleTimeoutMillis);
+            UserInterface.runSession(terminal);
+        } catch (NoSuchElementException e) {
+            // the player disconnected or timed out, the terminal has no more input
+        } catch (IOException e) {
+            System.out.println("An error occurred.");
+            e.printStackTrace();
+        } catch (RuntimeException e) {
+            // e.g. input the menus did not expect, only this player's connection is closed
+            System.err.println("The session of " + player + " failed and was closed.");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Sizes the shared puzzle pool from the number of sessions, so that players starting games
+     * at the same time find ready puzzles rather than generating their own.
+     */
+    private static void configurePuzzlePool(int maxSessions) {
+        int capacity = Math.max(MIN_POOL_CAPACITY, Math.min(MAX_POOL_CAPACITY, maxSessions / SESSIONS_PER_POOLED_PUZZLE));
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, capacity / MIN_POOL_CAPACITY));
+        UserInterface.configurePuzzlePool(capacity, threads);
+    }
+
+    private static void refuse(Socket socket) {
+        try (socket; OutputStream out = socket.getOutputStream()) {
+            out.write("The server is full, try again later.\n".getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException e) {
+            // the connection is dropped either way
+        }
+    }
+
+    /**
+     * Looks up Executors.newVirtualThreadPerTaskExecutor, which the game is not compiled against
+     * as it still runs on Java 17.
+     *
+     * @return The factory method, or null on versions without virtual threads.
+     */
+    private static Method findVirtualThreadExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates the executor running one thread per session.
+     *
+     * @param virtualThreads The factory of virtual thread executors, or null.
+     * @return An executor of virtual threads if available, of platform threads with small stacks otherwise.
+     */
+    private static ExecutorService newSessionExecutor(Method virtualThreads) {
+        if (virtualThreads != null) {
+            try {
+                return (ExecutorService)virtualThreads.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.out.println("An error occurred.");
+                e.printStackTrace();
+            }
+        }
+
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(null, runnable, "session-" + count.incrementAndGet(), PLATFORM_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
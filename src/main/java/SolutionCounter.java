@@ -0,0 +1,274 @@
+import java.util.Arrays;
+
+/**
+ * Counts the solutions of a partial board with an early exit.
+ * The search keeps the used numbers of every row, column and sub-matrix as bitmasks,
+ * fills naked and hidden singles before branching and always branches on the field
+ * with the fewest candidates, which keeps the tree small even on sparse 16x16 and 25x25 puzzles.
+ *
+ * An instance is not thread-safe, but it can be reused for any number of boards of the same complexity.
+ *
+ * @author László Tárkányi
+ */
+public class SolutionCounter {
+    // Instance variables
+
+    private final int complexity;
+    private final int cellCount;
+    private final int fullMask;
+    private final Geometry geometry;
+    private final int[][] units;
+
+    // search state, one copy of the fields and the masks per depth
+    private int[][] valueStack;
+    private int[][] maskStack;
+    private int[] lastSolution;
+    private int solutionLimit;
+    private int solutionCount;
+    private long branchBudget;
+
+    // Constructor
+
+    public SolutionCounter(int complexity) {
+        this.complexity = complexity;
+        this.cellCount = complexity * complexity;
+        this.fullMask = ((1 << (complexity + 1)) - 1) & ~1;
+        this.geometry = Geometry.of(complexity);
+        this.units = new int[3 * complexity][complexity];
+
+        int[] unitSizes = new int[3 * complexity];
+
+        for (int i = 0; i < this.cellCount; i++) {
+            int[] cellUnits = {this.geometry.rowOf(i), complexity + this.geometry.columnOf(i), 2 * complexity + this.geometry.boxOf(i)};
+            for (int unit : cellUnits) {
+                this.units[unit][unitSizes[unit]++] = i;
+            }
+        }
+
+        this.valueStack = new int[8][];
+        this.maskStack = new int[8][];
+        this.lastSolution = new int[this.cellCount];
+    }
+
+    // Class methods
+
+    /**
+     * Counts the solutions of a partial board, stopping as soon as the limit is reached.
+     *
+     * @param b The partial board, it is not modified.
+     * @param limit The number of solutions after which the search stops.
+     * @return The number of solutions found, at most the limit.
+     */
+    public int countSolutions(Board b, int limit) {
+        return countSolutions(b, limit, Long.MAX_VALUE);
+    }
+
+    /**
+     * Counts the solutions of a partial board, stopping as soon as the limit is reached
+     * or the search has branched more times than allowed.
+     *
+     * @param b The partial board, it is not modified.
+     * @param limit The number of solutions after which the search stops.
+     * @param maxBranches The number of branches after which the search gives up.
+     * @return The number of solutions found, at most the limit, or -1 if the search gave up.
+     */
+    public int countSolutions(Board b, int limit, long maxBranches) {
+        if (b.getComplexity() != this.complexity) {
+            throw new IllegalArgumentException("Board complexity " + b.getComplexity() + " does not match " + this.complexity);
+        }
+        this.solutionLimit = limit;
+        this.solutionCount = 0;
+        this.branchBudget = maxBranches;
+
+        int[] values = level(this.valueStack, 0, this.cellCount);
+        int[] masks = level(this.maskStack, 0, 3 * this.complexity);
+        Arrays.fill(masks, 0);
+
+        for (int i = 0; i < this.cellCount; i++) {
+            values[i] = 0;
+            int value = b.get(i);
+
+            if (value != 0) {
+                // a clue conflicting with an earlier one means no solution
+                if ((usedMask(masks, i) & (1 << value)) != 0) {
+                    return 0;
+                }
+                place(values, masks, i, value);
+            }
+        }
+
+        search(0);
+        return this.branchBudget < 0 ? -1 : this.solutionCount;
+    }
+
+    /**
+     * Gets the fields of the last solution found by countSolutions, row by row.
+     *
+     * @return The values of the solution, only meaningful if at least one solution was found.
+     */
+    public int[] getLastSolution() {
+        return this.lastSolution;
+    }
+
+    /**
+     * The recursive step of the search.
+     *
+     * @param depth The number of branches taken so far.
+     * @return The solution limit or the branch budget has been reached or not.
+     */
+    private boolean search(int depth) {
+        if (--this.branchBudget < 0) {
+            return true;
+        }
+        int[] values = this.valueStack[depth];
+        int[] masks = this.maskStack[depth];
+
+        if (!propagate(values, masks)) {
+            return false;
+        }
+
+        // choose the empty field with the fewest candidates
+        int bestCell = -1;
+        int bestCandidates = 0;
+        int bestCount = Integer.MAX_VALUE;
+
+        for (int i = 0; i < this.cellCount && bestCount > 2; i++) {
+            if (values[i] == 0) {
+                int candidates = this.fullMask & ~usedMask(masks, i);
+                int count = Integer.bitCount(candidates);
+
+                if (count < bestCount) {
+                    bestCell = i;
+                    bestCandidates = candidates;
+                    bestCount = count;
+                }
+            }
+        }
+
+        if (bestCell == -1) {
+            System.arraycopy(values, 0, this.lastSolution, 0, this.cellCount);
+            this.solutionCount++;
+            return this.solutionCount >= this.solutionLimit;
+        }
+
+        int[] nextValues = level(this.valueStack, depth + 1, this.cellCount);
+        int[] nextMasks = level(this.maskStack, depth + 1, 3 * this.complexity);
+
+        while (bestCandidates != 0) {
+            int value = Integer.numberOfTrailingZeros(bestCandidates);
+            bestCandidates &= bestCandidates - 1;
+
+            System.arraycopy(values, 0, nextValues, 0, this.cellCount);
+            System.arraycopy(masks, 0, nextMasks, 0, 3 * this.complexity);
+            place(nextValues, nextMasks, bestCell, value);
+
+            if (search(depth + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fills naked singles (fields with one candidate) and hidden singles
+     * (numbers with one possible field in a row, column or sub-matrix) until none is left.
+     *
+     * @return False if a contradiction was found.
+     */
+    private boolean propagate(int[] values, int[] masks) {
+        boolean progress = true;
+
+        while (progress) {
+            progress = false;
+
+            // naked singles
+            for (int i = 0; i < this.cellCount; i++) {
+                if (values[i] == 0) {
+                    int candidates = this.fullMask & ~usedMask(masks, i);
+
+                    if (candidates == 0) {
+                        return false;
+                    }
+                    if ((candidates & (candidates - 1)) == 0) {
+                        place(values, masks, i, Integer.numberOfTrailingZeros(candidates));
+                        progress = true;
+                    }
+                }
+            }
+            if (progress) {
+                continue;
+            }
+
+            // hidden singles
+            for (int[] unit : this.units) {
+                int once = 0;
+                int twice = 0;
+                int placed = 0;
+
+                for (int cell : unit) {
+                    if (values[cell] == 0) {
+                        int candidates = this.fullMask & ~usedMask(masks, cell);
+                        twice |= once & candidates;
+                        once |= candidates;
+                    } else {
+                        placed |= 1 << values[cell];
+                    }
+                }
+
+                // a number that fits nowhere in the unit
+                if ((once | placed) != this.fullMask) {
+                    return false;
+                }
+
+                int hidden = once & ~twice;
+                if (hidden != 0) {
+                    int value = Integer.numberOfTrailingZeros(hidden);
+                    int bit = 1 << value;
+
+                    for (int cell : unit) {
+                        if (values[cell] == 0 && (usedMask(masks, cell) & bit) == 0) {
+                            place(values, masks, cell, value);
+                            break;
+                        }
+                    }
+                    progress = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void place(int[] values, int[] masks, int cell, int value) {
+        int bit = 1 << value;
+        values[cell] = value;
+        masks[this.geometry.rowOf(cell)] |= bit;
+        masks[this.complexity + this.geometry.columnOf(cell)] |= bit;
+        masks[2 * this.complexity + this.geometry.boxOf(cell)] |= bit;
+    }
+
+    private int usedMask(int[] masks, int cell) {
+        return masks[this.geometry.rowOf(cell)] | masks[this.complexity + this.geometry.columnOf(cell)]
+            | masks[2 * this.complexity + this.geometry.boxOf(cell)];
+    }
+
+    /**
+     * Gets the array of a search depth, growing the stack when needed.
+     */
+    private int[] level(int[][] stack, int depth, int length) {
+        if (depth >= stack.length) {
+            int[][] grown = new int[stack.length * 2][];
+            System.arraycopy(stack, 0, grown, 0, stack.length);
+
+            if (stack == this.valueStack) {
+                this.valueStack = grown;
+            } else {
+                this.maskStack = grown;
+            }
+            stack = grown;
+        }
+        if (stack[depth] == null) {
+            stack[depth] = new int[length];
+        }
+        return stack[depth];
+    }
+}
@@ -0,0 +1,66 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The headless "solve" command, which solves a file of puzzles in parallel without any interaction:
+ *
+ *     solve --in puzzles.txt --out solutions.txt --threads 8
+ *
+ * The input holds one puzzle per line in the format of PuzzleFormat, for example 81 characters per 9x9 puzzle.
+ * The output holds one line per input line in the same order, see BulkSolver.solveAll.
+ * The number of puzzles per outcome, the throughput and the latency percentiles are reported on the standard error.
+ *
+ * @author László Tárkányi
+ */
+public class SolveCommand {
+    private static final String USAGE = "Usage: solve [--in <file>, - for the standard input] [--out <file>, - for the standard output] "
+        + "[--threads <cores>] [--max-branches " + BulkSolver.DEFAULT_MAX_BRANCHES + "]";
+
+    // Class methods
+
+    /**
+     * Runs the command.
+     *
+     * @param args The arguments of the program, starting with "solve".
+     * @return The exit status: 0 on success, 1 if the files could not be read or written, 2 if the arguments are wrong.
+     */
+    public static int run(String[] args) {
+        String in;
+        String out;
+        BulkSolver solver;
+
+        try {
+            CommandLineOptions options = new CommandLineOptions(args);
+            in = options.getString("in", "-");
+            out = options.getString("out", "-");
+            solver = new BulkSolver(options.getInt("threads", Runtime.getRuntime().availableProcessors()),
+                options.getInt("max-branches", (int)BulkSolver.DEFAULT_MAX_BRANCHES));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        BulkSolver.Report report;
+        try (BufferedReader reader = CommandLineOptions.openReader(in); Writer writer = CommandLineOptions.openWriter(out)) {
+            report = solver.solveAll(reader, writer);
+        } catch (IOException e) {
+            // the standard output may be the output file
+            System.err.println("An error occurred.");
+            e.printStackTrace();
+            return 1;
+        }
+
+        double seconds = report.getNanos() / 1e9;
+        System.err.printf("Solved %d of %d puzzles in %.2f s (%.1f puzzles/s)%n",
+            report.getCount(BulkSolver.Status.SOLVED), report.getTotal(), seconds, report.getTotal() / seconds);
+        for (BulkSolver.Status status : BulkSolver.Status.values()) {
+            if (status != BulkSolver.Status.SOLVED && report.getCount(status) > 0) {
+                System.err.println(status + ": " + report.getCount(status));
+            }
+        }
+        System.err.println("Latency per puzzle: " + report.getLatencies().summary());
+        return 0;
+    }
+}
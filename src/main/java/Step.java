@@ -1,29 +1,38 @@
 /**
  * Stores the details of the user's actions in each turn of the sudoku game.
+ * A step only records the field it changed, with the value before and after it,
+ * so it can be undone and redone without keeping a copy of the whole board.
  * 
  * @author László Tárkányi
  */
 public class Step {
     // Instance variables
 
-    private final Board boardSnapshot;
     private final Coordinate inputCoordinate;
     private final int inputValue;
+    private final int previousValue;
+    private final int newValue;
+
+    // only present in replays saved before steps became deltas
+    private Board boardSnapshot;
 
     // Constructor
 
-    public Step(Board boardSnapshot, Coordinate inputCoordinate, int inputValue) {
-        this.boardSnapshot = boardSnapshot;
+    /**
+     * @param inputCoordinate The field chosen by the player.
+     * @param inputValue The value entered by the player.
+     * @param previousValue The value of the field before the step.
+     * @param newValue The value of the field after the step, the previous one if the step was a mistake.
+     */
+    public Step(Coordinate inputCoordinate, int inputValue, int previousValue, int newValue) {
         this.inputCoordinate = inputCoordinate;
         this.inputValue = inputValue;
+        this.previousValue = previousValue;
+        this.newValue = newValue;
     }
 
     // Accessors
 
-    public Board getBoardSnapshot() {
-        return boardSnapshot;
-    }
-
     public Coordinate getInputCoordinate() {
         return inputCoordinate;
     }
@@ -31,4 +40,20 @@ public class Step {
     public int getInputValue() {
         return inputValue;
     }
+
+    public int getPreviousValue() {
+        return previousValue;
+    }
+
+    public int getNewValue() {
+        return newValue;
+    }
+
+    public boolean isMistake() {
+        return newValue != inputValue;
+    }
+
+    public Board getBoardSnapshot() {
+        return boardSnapshot;
+    }
 }
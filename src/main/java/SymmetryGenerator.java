@@ -0,0 +1,97 @@
+import java.util.Random;
+
+/**
+ * Generates complete boards without searching, by shuffling a fixed valid grid.
+ * The canonical grid of complexity n with sub-matrices of size s puts (s * (r % s) + r / s + c) % n + 1
+ * into row r and column c. Relabelling the numbers, swapping rows within a band of sub-matrices,
+ * swapping whole bands, the same for columns and stacks, and transposing the grid
+ * all keep it valid, so applying random ones gives a random looking grid in linear time.
+ *
+ * The grids produced are all equivalent to the canonical one, so this is meant for casual games
+ * where the puzzle carved from the grid matters more than the variety of grids.
+ * An instance keeps no state between calls and can be shared between threads.
+ *
+ * @author László Tárkányi
+ */
+public class SymmetryGenerator {
+    // Instance variables
+
+    private final int complexity;
+    private final int interval;
+
+    // Constructor
+
+    public SymmetryGenerator(int complexity) {
+        this.complexity = complexity;
+        this.interval = (int)Math.sqrt(complexity);
+    }
+
+    // Class methods
+
+    /**
+     * Fills a board with a random transform of the canonical grid, overwriting every field.
+     *
+     * @param b The board to be populated.
+     * @param random The source of randomness for the transforms.
+     * @return The board has been fully populated, always true.
+     */
+    public boolean generate(Board b, Random random) {
+        if (b.getComplexity() != this.complexity) {
+            throw new IllegalArgumentException("Board complexity " + b.getComplexity() + " does not match " + this.complexity);
+        }
+        int[] rows = shuffledLines(random);
+        int[] columns = shuffledLines(random);
+        int[] labels = permutation(this.complexity, random);
+        boolean transpose = random.nextBoolean();
+
+        for (int r = 0; r < this.complexity; r++) {
+            for (int c = 0; c < this.complexity; c++) {
+                int row = rows[r];
+                int column = columns[c];
+                int value = labels[(this.interval * (row % this.interval) + row / this.interval + column) % this.complexity] + 1;
+
+                if (transpose) {
+                    b.set(c, r, value);
+                } else {
+                    b.set(r, c, value);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Orders the rows (or columns) of the grid by shuffling the bands and the rows within every band.
+     *
+     * @return The canonical line placed at each position.
+     */
+    private int[] shuffledLines(Random random) {
+        int[] bands = permutation(this.interval, random);
+        int[] lines = new int[this.complexity];
+
+        for (int band = 0; band < this.interval; band++) {
+            int[] within = permutation(this.interval, random);
+            for (int i = 0; i < this.interval; i++) {
+                lines[band * this.interval + i] = bands[band] * this.interval + within[i];
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Shuffles the numbers from 0 to length - 1.
+     */
+    private static int[] permutation(int length, Random random) {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = i;
+        }
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = values[i];
+            values[i] = values[j];
+            values[j] = temp;
+        }
+        return values;
+    }
+}
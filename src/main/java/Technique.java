@@ -0,0 +1,21 @@
+/**
+ * The solving techniques known by TechniqueGrader, from the easiest to the hardest.
+ * A puzzle is graded by the hardest technique needed to solve it.
+ *
+ * @author László Tárkányi
+ */
+public enum Technique {
+    NAKED_SINGLE,
+    HIDDEN_SINGLE,
+    NAKED_PAIR,
+    POINTING,
+    X_WING,
+    GUESSING;
+
+    /**
+     * @return Whether this technique is at most as hard as the other one.
+     */
+    public boolean isAtMost(Technique other) {
+        return this.ordinal() <= other.ordinal();
+    }
+}
@@ -0,0 +1,374 @@
+import java.util.Arrays;
+
+/**
+ * Grades a puzzle by solving it the way a person would, with logical techniques only,
+ * and reporting the hardest technique that was needed. The techniques are always tried
+ * from the easiest to the hardest, and every step of progress starts over from the easiest one.
+ * A puzzle that cannot be finished with the known techniques is graded as GUESSING.
+ *
+ * The candidates of every field are kept as a bitmask with bit v set if v can still go there.
+ * Placing a number clears its bit from the peers of the field, so the candidates are updated
+ * incrementally instead of being recalculated for every technique.
+ *
+ * An instance is not thread-safe, but it can be reused for any number of boards of the same complexity.
+ *
+ * @author László Tárkányi
+ */
+public class TechniqueGrader {
+    // Instance variables
+
+    private final int complexity;
+    private final int cellCount;
+    private final int fullMask;
+    private final Geometry geometry;
+    private final int[][] units;
+    private final int[][] peers;
+
+    // grading state
+    private final int[] values;
+    private final int[] candidates;
+    private final int[] placedInUnit;
+    private final int[] techniqueCounts;
+    private int emptyCount;
+    private boolean contradiction;
+
+    // Constructor
+
+    public TechniqueGrader(int complexity) {
+        this.complexity = complexity;
+        this.cellCount = complexity * complexity;
+        this.fullMask = ((1 << (complexity + 1)) - 1) & ~1;
+        this.geometry = Geometry.of(complexity);
+        this.units = new int[3 * complexity][complexity];
+        this.peers = new int[this.cellCount][];
+
+        // rows, then columns, then sub-matrices
+        int[] unitSizes = new int[3 * complexity];
+        int[][] unitsOf = new int[this.cellCount][3];
+
+        for (int i = 0; i < this.cellCount; i++) {
+            unitsOf[i] = new int[] {this.geometry.rowOf(i), complexity + this.geometry.columnOf(i), 2 * complexity + this.geometry.boxOf(i)};
+            for (int unit : unitsOf[i]) {
+                this.units[unit][unitSizes[unit]++] = i;
+            }
+        }
+
+        boolean[] isPeer = new boolean[this.cellCount];
+        for (int i = 0; i < this.cellCount; i++) {
+            Arrays.fill(isPeer, false);
+            int peerCount = 0;
+            for (int unit : unitsOf[i]) {
+                for (int cell : this.units[unit]) {
+                    if (cell != i && !isPeer[cell]) {
+                        isPeer[cell] = true;
+                        peerCount++;
+                    }
+                }
+            }
+
+            this.peers[i] = new int[peerCount];
+            for (int cell = 0, k = 0; cell < this.cellCount; cell++) {
+                if (isPeer[cell]) {
+                    this.peers[i][k++] = cell;
+                }
+            }
+        }
+
+        this.values = new int[this.cellCount];
+        this.candidates = new int[this.cellCount];
+        this.placedInUnit = new int[3 * complexity];
+        this.techniqueCounts = new int[Technique.values().length];
+    }
+
+    // Accessors
+
+    /**
+     * Gets how many times each technique made progress during the last grading.
+     *
+     * @return The counts indexed by the ordinal of the technique.
+     */
+    public int[] getTechniqueCounts() {
+        return this.techniqueCounts;
+    }
+
+    // Class methods
+
+    /**
+     * Grades a puzzle.
+     *
+     * @param b The puzzle, it is not modified.
+     * @return The hardest technique needed to solve the puzzle, GUESSING if the known techniques are not enough,
+     *         or null if the puzzle turned out to have no solution.
+     */
+    public Technique grade(Board b) {
+        if (b.getComplexity() != this.complexity) {
+            throw new IllegalArgumentException("Board complexity " + b.getComplexity() + " does not match " + this.complexity);
+        }
+        Arrays.fill(this.values, 0);
+        Arrays.fill(this.candidates, this.fullMask);
+        Arrays.fill(this.placedInUnit, 0);
+        Arrays.fill(this.techniqueCounts, 0);
+        this.emptyCount = this.cellCount;
+        this.contradiction = false;
+
+        for (int i = 0; i < this.cellCount; i++) {
+            int value = b.get(i);
+            if (value != 0) {
+                // a clue conflicting with an earlier one means no solution
+                if ((this.candidates[i] & (1 << value)) == 0) {
+                    return null;
+                }
+                place(i, value);
+            }
+        }
+
+        Technique hardest = Technique.NAKED_SINGLE;
+
+        while (this.emptyCount > 0) {
+            Technique used;
+            if (nakedSingles()) {
+                used = Technique.NAKED_SINGLE;
+            } else if (hiddenSingles()) {
+                used = Technique.HIDDEN_SINGLE;
+            } else if (nakedPairs()) {
+                used = Technique.NAKED_PAIR;
+            } else if (pointing()) {
+                used = Technique.POINTING;
+            } else if (xWings(0) || xWings(this.complexity)) {
+                used = Technique.X_WING;
+            } else if (this.contradiction) {
+                return null;
+            } else {
+                this.techniqueCounts[Technique.GUESSING.ordinal()]++;
+                return Technique.GUESSING;
+            }
+
+            if (this.contradiction) {
+                return null;
+            }
+            this.techniqueCounts[used.ordinal()]++;
+            if (!used.isAtMost(hardest)) {
+                hardest = used;
+            }
+        }
+        return hardest;
+    }
+
+    /**
+     * Places a number and removes it from the candidates of the peers.
+     */
+    private void place(int cell, int value) {
+        int bit = 1 << value;
+        this.values[cell] = value;
+        this.candidates[cell] = 0;
+        this.emptyCount--;
+
+        this.placedInUnit[this.geometry.rowOf(cell)] |= bit;
+        this.placedInUnit[this.complexity + this.geometry.columnOf(cell)] |= bit;
+        this.placedInUnit[2 * this.complexity + this.geometry.boxOf(cell)] |= bit;
+
+        for (int peer : this.peers[cell]) {
+            this.candidates[peer] &= ~bit;
+        }
+    }
+
+    /**
+     * Removes candidates from an empty field.
+     *
+     * @return Whether any of them was still a candidate.
+     */
+    private boolean eliminate(int cell, int mask) {
+        if (this.values[cell] != 0 || (this.candidates[cell] & mask) == 0) {
+            return false;
+        }
+        this.candidates[cell] &= ~mask;
+        if (this.candidates[cell] == 0) {
+            this.contradiction = true;
+        }
+        return true;
+    }
+
+    /**
+     * Fills every field that has a single candidate left.
+     */
+    private boolean nakedSingles() {
+        boolean progress = false;
+
+        for (int i = 0; i < this.cellCount; i++) {
+            if (this.values[i] == 0) {
+                int mask = this.candidates[i];
+                if (mask == 0) {
+                    this.contradiction = true;
+                    return progress;
+                }
+                if ((mask & (mask - 1)) == 0) {
+                    place(i, Integer.numberOfTrailingZeros(mask));
+                    progress = true;
+                }
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Fills the fields that are the only place for a number in one of their units.
+     */
+    private boolean hiddenSingles() {
+        for (int unit = 0; unit < this.units.length; unit++) {
+            // numbers seen in at least one and in at least two fields of the unit
+            int once = 0;
+            int twice = 0;
+            for (int cell : this.units[unit]) {
+                twice |= once & this.candidates[cell];
+                once |= this.candidates[cell];
+            }
+
+            if ((once | this.placedInUnit[unit]) != this.fullMask) {
+                // a number has no place left in the unit
+                this.contradiction = true;
+                return false;
+            }
+
+            int hidden = once & ~twice;
+            if (hidden != 0) {
+                for (int cell : this.units[unit]) {
+                    int mask = this.candidates[cell] & hidden;
+                    if (mask != 0) {
+                        if ((mask & (mask - 1)) != 0) {
+                            // two numbers can only go into the same field
+                            this.contradiction = true;
+                            return false;
+                        }
+                        place(cell, Integer.numberOfTrailingZeros(mask));
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the candidates of two fields of a unit that can only hold the same two numbers
+     * from the other fields of the unit.
+     */
+    private boolean nakedPairs() {
+        boolean progress = false;
+
+        for (int[] unit : this.units) {
+            for (int a = 0; a < unit.length; a++) {
+                int mask = this.candidates[unit[a]];
+                if (Integer.bitCount(mask) != 2) {
+                    continue;
+                }
+                for (int b = a + 1; b < unit.length; b++) {
+                    if (this.candidates[unit[b]] == mask) {
+                        for (int k = 0; k < unit.length; k++) {
+                            if (k != a && k != b) {
+                                progress |= eliminate(unit[k], mask);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Removes a number from the rest of a row or column if it can only go into
+     * that row or column within a sub-matrix.
+     */
+    private boolean pointing() {
+        boolean progress = false;
+
+        for (int box = 2 * this.complexity; box < 3 * this.complexity; box++) {
+            int[] cells = this.units[box];
+
+            for (int value = 1; value <= this.complexity; value++) {
+                int bit = 1 << value;
+                if ((this.placedInUnit[box] & bit) != 0) {
+                    continue;
+                }
+
+                int row = -1;
+                int column = -1;
+                for (int cell : cells) {
+                    if ((this.candidates[cell] & bit) != 0) {
+                        int cellRow = this.geometry.rowOf(cell);
+                        int cellColumn = this.geometry.columnOf(cell);
+                        row = row == -1 || row == cellRow ? cellRow : -2;
+                        column = column == -1 || column == cellColumn ? cellColumn : -2;
+                    }
+                }
+
+                if (row >= 0) {
+                    progress |= eliminateOutsideBox(this.units[row], cells, bit);
+                }
+                if (column >= 0) {
+                    progress |= eliminateOutsideBox(this.units[this.complexity + column], cells, bit);
+                }
+            }
+        }
+        return progress;
+    }
+
+    private boolean eliminateOutsideBox(int[] line, int[] box, int bit) {
+        boolean progress = false;
+        int boxIndex = this.geometry.boxOf(box[0]);
+
+        for (int cell : line) {
+            if (this.geometry.boxOf(cell) != boxIndex) {
+                progress |= eliminate(cell, bit);
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Finds two lines in which a number can only go into the same two positions,
+     * and removes the number from those positions of the crossing lines.
+     *
+     * @param firstUnit 0 for rows crossed by columns, the complexity for columns crossed by rows.
+     */
+    private boolean xWings(int firstUnit) {
+        boolean progress = false;
+        int crossingUnit = firstUnit == 0 ? this.complexity : 0;
+        int[] positions = new int[this.complexity];
+
+        for (int value = 1; value <= this.complexity; value++) {
+            int bit = 1 << value;
+
+            // the positions of the number in every line, one bit per position
+            for (int line = 0; line < this.complexity; line++) {
+                positions[line] = 0;
+                int[] cells = this.units[firstUnit + line];
+                for (int k = 0; k < this.complexity; k++) {
+                    if ((this.candidates[cells[k]] & bit) != 0) {
+                        positions[line] |= 1 << k;
+                    }
+                }
+            }
+
+            for (int a = 0; a < this.complexity; a++) {
+                if (Integer.bitCount(positions[a]) != 2) {
+                    continue;
+                }
+                for (int b = a + 1; b < this.complexity; b++) {
+                    if (positions[b] != positions[a]) {
+                        continue;
+                    }
+                    for (int pair = positions[a]; pair != 0; pair &= pair - 1) {
+                        int[] crossing = this.units[crossingUnit + Integer.numberOfTrailingZeros(pair)];
+                        for (int k = 0; k < this.complexity; k++) {
+                            if (k != a && k != b) {
+                                progress |= eliminate(crossing[k], bit);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return progress;
+    }
+}
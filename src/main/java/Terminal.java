@@ -0,0 +1,95 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+
+/**
+ * The input and output of one player, either the console or a connection of the game server.
+ * The menus and the game read the choices of the player and print their screens through it,
+ * so that any number of players can be served at the same time.
+ *
+ * Output to a connection is buffered and only sent when the player is asked for input,
+ * so every screen leaves in a few writes however many lines it has.
+ *
+ * @author László Tárkányi
+ */
+public class Terminal implements Closeable {
+    // Instance variables
+
+    private final Scanner scanner;
+    private final PrintStream out;
+
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    // Constructors
+
+    /**
+     * @param scanner The input device of the terminal.
+     * @param out The display of the terminal.
+     */
+    public Terminal(Scanner scanner, PrintStream out) {
+        this.scanner = scanner;
+        this.out = out;
+    }
+
+    /**
+     * Creates the terminal of a connection.
+     *
+     * @param in The bytes typed by the player.
+     * @param out The bytes shown to the player.
+     */
+    public Terminal(InputStream in, OutputStream out) {
+        this(new Scanner(in, StandardCharsets.UTF_8),
+            new PrintStream(new BufferedOutputStream(out, BUFFER_SIZE), false, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return The terminal the program was started from.
+     */
+    public static Terminal console() {
+        return new Terminal(new Scanner(System.in), System.out);
+    }
+
+    // Accessors
+
+    public Scanner getScanner() {
+        return this.scanner;
+    }
+
+    public PrintStream getOut() {
+        return this.out;
+    }
+
+    // Class methods
+
+    /**
+     * Sends everything printed so far, then waits for the next word typed by the player.
+     *
+     * @return The word.
+     * @throws java.util.NoSuchElementException If the player closed the terminal.
+     */
+    public String next() {
+        this.out.flush();
+        return this.scanner.next();
+    }
+
+    public void println() {
+        this.out.println();
+    }
+
+    public void println(String line) {
+        this.out.println(line);
+    }
+
+    @Override
+    public void close() {
+        this.out.flush();
+        this.scanner.close();
+        if (this.out != System.out) {
+            this.out.close();
+        }
+    }
+}
@@ -1,6 +1,8 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Deque;
-import java.util.Scanner;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Prints text on the console that the user is supposed to interact with.
@@ -11,78 +13,170 @@ import java.util.Scanner;
 public class UserInterface {
     private final static String[] MENU_OPTIONS = {"[1] New Game", "[2] Replays", "[q] Quit program"};
     private final static String[] DIFF_OPTIONS = {"[1] Easy", "[2] Intermediate", "[3] Expert", "[4] Gamer", "[b] Back to menu"};
-    private enum Difficulty {
-        EASY (0.65),
-        INTERMEDIATE (0.5),
-        EXPERT (0.22),
-        GAMER (0);
-
-        private final double percentage;
-
-        Difficulty (double percentage) {
-            this.percentage = percentage;
-        }
-    }
+    private final static String[] SPEED_OPTIONS = {"[1] Slow", "[2] Normal", "[3] Fast", "[4] Instant", "[b] Back to menu"};
+    private final static String[] VIEWER_OPTIONS = {"[n] Next step", "[p] Previous step", "[s] Go to start", "[e] Go to end", "[a] Autoplay", "[b] Back to menu"};
     private final static int MAX_COMPLEXITY = 25;
+    private final static int DEFAULT_COMPLEXITY = 9;
+    private final static BoardFactory.Engine GENERATION_ENGINE = BoardFactory.Engine.DANCING_LINKS;
+    private final static BoardFactory.Engine CASUAL_GENERATION_ENGINE = BoardFactory.Engine.SYMMETRY;
+    private final static int POOL_CAPACITY = 2; // puzzles per size and difficulty
+    private final static int POOL_THREADS = 1;
+    private final static long POOL_MAX_AGE = 30L * 24 * 60 * 60 * 1000; // ms
+    private final static String POOL_FILEPATH = "puzzles.pool";
+    private final static String BANK_FILEPATH = "puzzles.bank";
     private final static int ASCII_LOWER_BOUNDARY = 48; // 0
     private final static int ASCII_HIGHER_BOUNDARY = 57; // 9
-    private final static int REPLAY_DELAY = 3000; // ms
+    private static int poolCapacity = POOL_CAPACITY;
+    private static int poolThreads = POOL_THREADS;
+    private static PuzzlePool puzzlePool;
+    private static PuzzleBank puzzleBank;
+    private static boolean puzzleBankOpened;
 
     /**
-     * Prints the welcome screen to the console and initiates the main menu.
+     * Prints the welcome screen to the console and initiates the main menu,
+     * then saves the ready puzzles once the player quits.
      * 
-     * @param scanner The input device of the terminal.
+     * @param terminal The terminal of the player.
      */
-    public static void startUp(Scanner scanner) {
+    public static void startUp(Terminal terminal) {
+        runSession(terminal);
+        shutDown();
+    }
+
+    /**
+     * Prints the welcome screen and leads one player through the menus until they quit.
+     * Any number of sessions can run at the same time, they share the puzzle pool, the puzzle bank and the replays.
+     * 
+     * @param terminal The terminal of the player.
+     */
+    public static void runSession(Terminal terminal) {
         // yikes
-        System.out.println("                             mm                                   ");
-        System.out.println(" m@***@m@                  *@@@            *@@@                   ");
-        System.out.println("m@@    *@                    @@              @@                   ");
-        System.out.println("*@@@m    *@@@  *@@@     m@**@@@    m@@*@@m   @@  m@@* *@@@  *@@@  ");
-        System.out.println("  *@@@@@m  @@    @@   m@@    @@   @@*   *@@  @@ m@      @@    @@  ");
-        System.out.println("      *@@  !@    @@   @!@    @!   @@     @@  !@m@@      !@    @@  ");
-        System.out.println("@@     @@  !@    @!   *!@    @!   @@     !@  !@ *@@m    !@    @!  ");
-        System.out.println("!     *@!  !@    !!   !!!    !!   !@     !!  !!!!!      !@    !!  ");
-        System.out.println("!!     !!  !!    !!   *:!    !:   !!!   !!!  :! *!!!    !!    !!  ");
-        System.out.println(":!: : :!   :: !: :!:   : : : ! :   : : : : : : :  : :   :: !: :!: ");
-        System.out.println("Welcome to Lawful's command-line Sudoku game.\n");
-        presentMenuInterface(scanner);
+        terminal.println("                             mm                                   ");
+        terminal.println(" m@***@m@                  *@@@            *@@@                   ");
+        terminal.println("m@@    *@                    @@              @@                   ");
+        terminal.println("*@@@m    *@@@  *@@@     m@**@@@    m@@*@@m   @@  m@@* *@@@  *@@@  ");
+        terminal.println("  *@@@@@m  @@    @@   m@@    @@   @@*   *@@  @@ m@      @@    @@  ");
+        terminal.println("      *@@  !@    @@   @!@    @!   @@     @@  !@m@@      !@    @@  ");
+        terminal.println("@@     @@  !@    @!   *!@    @!   @@     !@  !@ *@@m    !@    @!  ");
+        terminal.println("!     *@!  !@    !!   !!!    !!   !@     !!  !!!!!      !@    !!  ");
+        terminal.println("!!     !!  !!    !!   *:!    !:   !!!   !!!  :! *!!!    !!    !!  ");
+        terminal.println(":!: : :!   :: !: :!:   : : : ! :   : : : : : : :  : :   :: !: :!: ");
+        terminal.println("Welcome to Lawful's command-line Sudoku game.\n");
+        getPuzzlePool();
+        presentMenuInterface(terminal);
+    }
+
+    /**
+     * Stops refilling the puzzle pool and saves it, and closes the puzzle bank.
+     * Sessions still running afterwards generate their puzzles on the spot.
+     */
+    public static synchronized void shutDown() {
+        if (puzzlePool != null) {
+            puzzlePool.close();
+        }
+        closePuzzleBank();
+    }
+
+    /**
+     * Opens the bank of pre-generated puzzles on first use, if there is one next to the game.
+     * 
+     * @return The puzzle bank, or null if there is none.
+     */
+    private static synchronized PuzzleBank getPuzzleBank() {
+        if (!puzzleBankOpened) {
+            puzzleBankOpened = true;
+            if (Files.isRegularFile(Paths.get(BANK_FILEPATH))) {
+                try {
+                    puzzleBank = new PuzzleBank(Paths.get(BANK_FILEPATH));
+                } catch (IOException e) {
+                    System.out.println("An error occurred.");
+                    e.printStackTrace();
+                }
+            }
+        }
+        return puzzleBank;
+    }
+
+    private static synchronized void closePuzzleBank() {
+        if (puzzleBank != null) {
+            try {
+                puzzleBank.close();
+            } catch (IOException e) {
+                System.out.println("An error occurred.");
+                e.printStackTrace();
+            }
+            puzzleBank = null;
+        }
+    }
+
+    /**
+     * Sizes the puzzle pool for more players than the console game has, e.g. the sessions of the server.
+     * Only takes effect if called before the pool is first used.
+     * 
+     * @param capacity The number of puzzles kept for each size and difficulty.
+     * @param threads The number of background threads refilling the pool.
+     */
+    public static synchronized void configurePuzzlePool(int capacity, int threads) {
+        if (capacity < 1 || threads < 1) {
+            throw new IllegalArgumentException("The capacity and the number of threads must be positive");
+        }
+        poolCapacity = capacity;
+        poolThreads = threads;
+    }
+
+    /**
+     * Gets the pool of ready puzzles, loading the puzzles of the previous session on first use
+     * and starting to fill the pool of the default board size.
+     * 
+     * @return The puzzle pool.
+     */
+    private static synchronized PuzzlePool getPuzzlePool() {
+        if (puzzlePool == null) {
+            puzzlePool = new PuzzlePool(poolCapacity, POOL_MAX_AGE, poolThreads, Paths.get(POOL_FILEPATH), UserInterface::generatePuzzle);
+            // save the pool even if the program is stopped without quitting, shutting down twice is harmless
+            Runtime.getRuntime().addShutdownHook(new Thread(UserInterface::shutDown, "puzzle-pool-shutdown"));
+            for (Difficulty difficulty : Difficulty.values()) {
+                puzzlePool.warmUp(DEFAULT_COMPLEXITY, difficulty);
+            }
+        }
+        return puzzlePool;
     }
 
     /**
      * Draws the main menu on the terminal.
      * 
-     * @param scanner The input device of the terminal.
+     * @param terminal The terminal of the player.
      */
-    public static void presentMenuInterface(Scanner scanner) {
+    public static void presentMenuInterface(Terminal terminal) {
         String keyPress = "";
 
         while (!keyPress.equals("q")) {
             for (String option : MENU_OPTIONS) {
-                System.out.println(option);
+                terminal.println(option);
             }
-            keyPress = scanner.next();
+            keyPress = terminal.next();
 
             // Handle user input choice
             switch (keyPress) {
                 case "1":
-                    letUserChooseDifficulty(scanner);
+                    letUserChooseDifficulty(terminal);
                     break;
 
                 case "2":
-                    if (ReplayManagerSingleton.getInstance().getReplays() != null) {
-                        letUserChooseReplay(scanner);
+                    ArrayList<ReplaySummary> replays = ReplayManagerSingleton.getInstance().listReplays();
+                    if (!replays.isEmpty()) {
+                        letUserChooseReplay(replays, terminal);
                     } else {
-                        System.out.println("Try playing some games first.");
+                        terminal.println("Try playing some games first.");
                     }
                     break;
 
                 case "q":
-                    System.out.println("Thanks for playing.");
+                    terminal.println("Thanks for playing.");
                     return;
 
                 default:
-                    System.out.println("Invalid input, try again.");
+                    terminal.println("Invalid input, try again.");
                     break;
             }
         }
@@ -92,47 +186,47 @@ public class UserInterface {
      * Allows the user to pick the difficulty of the puzzle
      * and navigates to the next user prompt.
      * 
-     * @param scanner The input device of the terminal.
+     * @param terminal The terminal of the player.
      */
-    private static void letUserChooseDifficulty(Scanner scanner) {
+    private static void letUserChooseDifficulty(Terminal terminal) {
         String keyPress = "";
         
         while (!keyPress.equals("b")) {
-            System.out.println("\nChoose a difficulty:\n");
+            terminal.println("\nChoose a difficulty:\n");
         
             for (String option : DIFF_OPTIONS) {
-                System.out.println(option);
+                terminal.println(option);
             }
-            keyPress = scanner.next();
+            keyPress = terminal.next();
 
             // Handle user input choice
             switch (keyPress) {
                 case "1" -> {
                     // easy difficulty chosen
-                    initGame(Difficulty.EASY, scanner);
+                    initGame(Difficulty.EASY, terminal);
                     return;
                 }
                 case "2" -> {
                     // intermediate difficulty chosen
-                    initGame(Difficulty.INTERMEDIATE, scanner);
+                    initGame(Difficulty.INTERMEDIATE, terminal);
                     return;
                 }
                 case "3" -> {
                     // expert difficulty chosen
-                    initGame(Difficulty.EXPERT, scanner);
+                    initGame(Difficulty.EXPERT, terminal);
                     return;
                 }
                 case "4" -> {
                     // gamer difficulty chosen
-                    initGame(Difficulty.GAMER, scanner);
+                    initGame(Difficulty.GAMER, terminal);
                     return;
                 }
                 case "b" -> {
                     // init back sequence
-                    System.out.println("Going back.");
+                    terminal.println("Going back.");
                     return;
                 }
-                default -> System.out.println("Invalid input, try again.");
+                default -> terminal.println("Invalid input, try again.");
             }
         }
     }
@@ -140,18 +234,18 @@ public class UserInterface {
     /**
      * Allows the user to select the size of the puzzle board.
      * 
-     * @param scanner The input device of the terminal.
+     * @param terminal The terminal of the player.
      * @return The length of one side of the puzzle.
      */
-    private static int letUserChooseComplexity(Scanner scanner) {
-        System.out.println("\n[1-" + MAX_COMPLEXITY +"] How many numbers should there be in a row? (perfect square values only)");
-        System.out.println("[b] Back to main menu");
+    private static int letUserChooseComplexity(Terminal terminal) {
+        terminal.println("\n[1-" + MAX_COMPLEXITY +"] How many numbers should there be in a row? (perfect square values only)");
+        terminal.println("[b] Back to main menu");
 
         String keyPress = "";
 
         // loop until the user chooses to navigate elsewhere
         while (!keyPress.equals("b")) {
-            keyPress = scanner.next();
+            keyPress = terminal.next();
             int charCount = 0;
 
             // loop through the characters of the input string
@@ -172,7 +266,7 @@ public class UserInterface {
                     int inputNumber = Integer.parseInt(keyPress);
 
                     if (inputNumber > MAX_COMPLEXITY) {
-                        System.out.println("Please choose a smaller number.");
+                        terminal.println("Please choose a smaller number.");
                         continue;
                     }
                     double root = Math.sqrt(inputNumber);
@@ -181,10 +275,10 @@ public class UserInterface {
                     if (root - floor == 0.0) {
                         return inputNumber;
                     } else {
-                        System.out.println("Not a perfect square, try again.");
+                        terminal.println("Not a perfect square, try again.");
                     }
                 } else {
-                    System.out.println("Invalid value, try again.");
+                    terminal.println("Invalid value, try again.");
                 }
             } else {
                 return -1;
@@ -197,59 +291,90 @@ public class UserInterface {
      * Initiates the user's interaction with the puzzle.
      * 
      * @param difficulty The level of difficulty chosen by the user.
-     * @param scanner The input device of the terminal.
+     * @param terminal The terminal of the player.
      */
-    private static void initGame(Difficulty difficulty, Scanner scanner) {
+    private static void initGame(Difficulty difficulty, Terminal terminal) {
         int complexity = 0;
         
         while (complexity == 0) {
-            complexity = letUserChooseComplexity(scanner);
+            complexity = letUserChooseComplexity(terminal);
         }
 
         if (complexity != -1) {
-            // initialise the game
-            Board solution = new Board(complexity);
-            // AN: Commented code is used for measuring generational algorithm performance
-            /*
-            long start = System.nanoTime();
-            */
-            BoardFactory.generateSolution(solution, complexity);
-            /*
-            long end = System.nanoTime();
-            System.out.println((double) (end - start) / 1000000000);
-            */
-            Board puzzleBoard = new Board(complexity);
-            puzzleBoard.copyValues(solution);
-            puzzleBoard.setPuzzleDifficulty((int)((complexity * complexity) * difficulty.percentage));
-            Game newGame = new Game(solution, puzzleBoard);
-            newGame.play(scanner);
+            // initialise the game with a puzzle of the bank or a ready one of the pool,
+            // the pool generates the next one in the background
+            PuzzleBank bank = getPuzzleBank();
+            PuzzlePair pair = bank != null ? bank.random(complexity, difficulty, ThreadLocalRandom.current()) : null;
+            if (pair == null) {
+                pair = getPuzzlePool().take(complexity, difficulty);
+            }
+            Game newGame = new Game(pair.getSolution(), pair.getPuzzle());
+            newGame.play(terminal);
+        }
+    }
+
+    /**
+     * Generates the solution of a new game and carves the puzzle from it.
+     * Called by the puzzle pool, usually from one of its background threads.
+     * 
+     * @param complexity The length of one side of the puzzle.
+     * @param difficulty The level of difficulty of the puzzle.
+     * @return The puzzle and its solution.
+     */
+    private static PuzzlePair generatePuzzle(int complexity, Difficulty difficulty) {
+        Board solution = new Board(complexity);
+        BoardFactory.generateSolution(solution, complexity, selectEngine(difficulty));
+        Board puzzleBoard = new Board(complexity);
+        puzzleBoard.copyValues(solution);
+        puzzleBoard.setPuzzleDifficulty(difficulty.getNumOfClues(complexity), difficulty.getHardestTechnique(), ThreadLocalRandom.current());
+        return new PuzzlePair(solution, puzzleBoard);
+    }
+
+    /**
+     * Picks the algorithm generating the solution of a new game.
+     * Easy and intermediate games start from a shuffled fixed grid, which is instant on any board size,
+     * the harder ones from a fully random grid.
+     * 
+     * @param difficulty The level of difficulty chosen by the user.
+     * @return The generation algorithm.
+     */
+    private static BoardFactory.Engine selectEngine(Difficulty difficulty) {
+        switch (difficulty) {
+            case EASY:
+            case INTERMEDIATE:
+                return CASUAL_GENERATION_ENGINE;
+
+            default:
+                return GENERATION_ENGINE;
         }
     }
 
     /**
      * Presents the previously played games as a list and allows the user to select one of them.
+     * Only the chosen game is loaded from the replay file.
      * 
-     * @param scanner The input device of the terminal.
+     * @param replays The summaries of the previously played games.
+     * @param terminal The terminal of the player.
      */
-    private static void letUserChooseReplay(Scanner scanner) {
+    private static void letUserChooseReplay(ArrayList<ReplaySummary> replays, Terminal terminal) {
         String keyPress = "";
-        ArrayList<Replay> replays = ReplayManagerSingleton.getInstance().readReplaysFromFile();
         int numOfReplays = replays.size();
 
         // print all previously played games as dates
         for (int i = 0; i < numOfReplays; i++) {
-            Replay currentReplay = replays.get(i);
-            if (!currentReplay.getGame().isEmpty()) {
-                int complexity = currentReplay.getGame().peek().getBoardSnapshot().getComplexity();
-                System.out.println("[" + (i + 1) + "] " + currentReplay.getDate() + " || " + complexity + "x" + complexity + " || " + currentReplay.getGame().size() + " steps ");
+            ReplaySummary currentReplay = replays.get(i);
+            if (currentReplay.getStepCount() > 0) {
+                int complexity = currentReplay.getComplexity();
+                String outcome = currentReplay.isSolved() ? "solved" : "failed";
+                terminal.println("[" + (i + 1) + "] " + currentReplay.getDate() + " || " + complexity + "x" + complexity + " || " + currentReplay.getStepCount() + " steps || " + currentReplay.getMistakes() + " mistakes || " + outcome);
             }
         }
-        System.out.println("\n[1-" + numOfReplays + "] Choose the game to replay");
-        System.out.println("[b] Back to main menu\n");
+        terminal.println("\n[1-" + numOfReplays + "] Choose the game to replay");
+        terminal.println("[b] Back to main menu\n");
 
         // handle user input
         while (!keyPress.equals("b")) {
-            keyPress = scanner.next();
+            keyPress = terminal.next();
             int charCount = 0;
 
             // validate input
@@ -266,47 +391,204 @@ public class UserInterface {
                 int inputNumber = Integer.parseInt(keyPress);
 
                 if (inputNumber <= replays.size() && inputNumber > 0) {
-                    playReplay(replays.get(inputNumber - 1).getGame());
+                    playReplay(replays.get(inputNumber - 1), terminal);
                     return;
                 } else {
-                    System.out.println("Chosen number out of range.");
+                    terminal.println("Chosen number out of range.");
                 }
             } else if (!keyPress.equals("b")) {
-                System.out.println("Invalid input, try again.");
+                terminal.println("Invalid input, try again.");
             }
         }
     }
 
+    /**
+     * Allows the user to pick how fast the steps of a replay follow each other.
+     * 
+     * @param terminal The terminal of the player.
+     * @return The chosen speed, or null if the user navigated back.
+     */
+    private static ReplaySpeed letUserChooseReplaySpeed(Terminal terminal) {
+        String keyPress = "";
+
+        while (!keyPress.equals("b")) {
+            terminal.println("\nChoose the replay speed:\n");
+
+            for (String option : SPEED_OPTIONS) {
+                terminal.println(option);
+            }
+            keyPress = terminal.next();
+
+            // Handle user input choice
+            switch (keyPress) {
+                case "1" -> {
+                    return ReplaySpeed.SLOW;
+                }
+                case "2" -> {
+                    return ReplaySpeed.NORMAL;
+                }
+                case "3" -> {
+                    return ReplaySpeed.FAST;
+                }
+                case "4" -> {
+                    return ReplaySpeed.INSTANT;
+                }
+                case "b" -> {
+                    // init back sequence
+                    terminal.println("Going back.");
+                    return null;
+                }
+                default -> terminal.println("Invalid input, try again.");
+            }
+        }
+        return null;
+    }
+
     /**
      * A step-by-step presentation of a given game played by the user.
+     * The user can move through the steps in both directions, jump to any step or let the replay play on.
+     * Only the steps around the current one are read from the replay file,
+     * so every move is instant even on long games, and the saved replay itself is left untouched.
      * 
-     * @param game The game log storing the steps.
+     * @param summary The summary of the replay to be presented.
+     * @param terminal The terminal of the player.
      */
-    private static void playReplay(Deque<Step> game) {
-        while (!game.isEmpty()) {
-            // remove steps from the front of the deque
-            Step nextStep = game.removeFirst();
-            nextStep.getBoardSnapshot().printBoard();
-            System.out.println("Next step:\nRow: " + (nextStep.getInputCoordinate().getRow() + 1) + ", Column: " + (nextStep.getInputCoordinate().getColumn() + 1));
-            System.out.println("Value: " + nextStep.getInputValue());
-            System.out.println("----------------");
+    private static void playReplay(ReplaySummary summary, Terminal terminal) {
+        ReplayCursor cursor = ReplayManagerSingleton.getInstance().openReplay(summary);
+        if (cursor == null) {
+            return;
+        }
 
-            // delay between showing steps
+        BoardRenderer renderer = new BoardRenderer(cursor.getComplexity(), BoardRenderer.isAnsiRequested());
+
+        try {
+            String keyPress = "";
+
+            while (!keyPress.equals("b")) {
+                printReplayStep(cursor, renderer, terminal);
+                for (String option : VIEWER_OPTIONS) {
+                    terminal.println(option);
+                }
+                terminal.println("[0-" + cursor.getStepCount() + "] Go to step");
+                keyPress = terminal.next();
+
+                // Handle user input choice
+                switch (keyPress) {
+                    case "n" -> {
+                        if (cursor.hasNext()) {
+                            cursor.next();
+                        } else {
+                            terminal.println("End of replay.");
+                        }
+                    }
+                    case "p" -> {
+                        if (cursor.hasPrevious()) {
+                            cursor.previous();
+                        } else {
+                            terminal.println("Start of replay.");
+                        }
+                    }
+                    case "s" -> cursor.toStart();
+                    case "e" -> cursor.toEnd();
+                    case "a" -> {
+                        ReplaySpeed speed = letUserChooseReplaySpeed(terminal);
+                        if (speed != null) {
+                            autoplayReplay(cursor, speed, renderer, terminal);
+                        }
+                    }
+                    case "b" -> terminal.println("Going back.");
+                    default -> {
+                        int stepNumber = parseStepNumber(keyPress);
+                        if (stepNumber >= 0 && stepNumber <= cursor.getStepCount()) {
+                            cursor.seek(stepNumber);
+                        } else if (stepNumber >= 0) {
+                            terminal.println("Chosen number out of range.");
+                        } else {
+                            terminal.println("Invalid input, try again.");
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            terminal.println("An error has occurred.");
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            // leave the viewer, but keep the interrupt for the thread running the session
+            Thread.currentThread().interrupt();
+        } finally {
+            renderer.release(terminal.getOut());
             try {
-                Thread.sleep(REPLAY_DELAY);
-            } catch (InterruptedException e) {
-                System.out.println("An error has occurred.");
+                cursor.close();
+            } catch (IOException e) {
+                terminal.println("An error has occurred.");
                 e.printStackTrace();
             }
+        }
+    }
 
-            // present final state of the game board
-            if (game.isEmpty()) {
-                
-                Coordinate lastCoordinate = new Coordinate(nextStep.getInputCoordinate().getRow(), nextStep.getInputCoordinate().getColumn());
-                nextStep.getBoardSnapshot().updateField(lastCoordinate, nextStep.getInputValue());
-                nextStep.getBoardSnapshot().printBoard();
-                System.out.println("End of replay.");
+    /**
+     * Plays the rest of a replay from the current step.
+     * 
+     * @param cursor The replay, positioned at the step to start from.
+     * @param speed The pace of the presentation.
+     * @param renderer Draws the boards of the replay.
+     * @param terminal The terminal of the player.
+     */
+    private static void autoplayReplay(ReplayCursor cursor, ReplaySpeed speed, BoardRenderer renderer, Terminal terminal) throws IOException, InterruptedException {
+        while (cursor.hasNext()) {
+            cursor.next();
+            if (cursor.hasNext()) {
+                printReplayStep(cursor, renderer, terminal);
             }
+
+            // delay between showing steps
+            if (speed.getDelay() > 0) {
+                Thread.sleep(speed.getDelay());
+            }
+        }
+        terminal.println("End of replay.");
+    }
+
+    /**
+     * Prints the board at the current step of a replay and the step that led to it.
+     * 
+     * @param cursor The replay.
+     * @param renderer Draws the boards of the replay.
+     * @param terminal The terminal of the player.
+     */
+    private static void printReplayStep(ReplayCursor cursor, BoardRenderer renderer, Terminal terminal) {
+        renderer.render(cursor.getBoard(), terminal.getOut());
+        terminal.println("Step " + cursor.getStepIndex() + " of " + cursor.getStepCount());
+
+        Step lastStep = cursor.getLastStep();
+        if (lastStep != null) {
+            terminal.println("Row: " + (lastStep.getInputCoordinate().getRow() + 1) + ", Column: " + (lastStep.getInputCoordinate().getColumn() + 1));
+            terminal.println("Value: " + lastStep.getInputValue() + (lastStep.isMistake() ? " (mistake)" : ""));
+        }
+        terminal.println("----------------");
+    }
+
+    /**
+     * Reads a step number typed by the user.
+     * 
+     * @param keyPress The input of the user.
+     * @return The number, or -1 if the input is not a number.
+     */
+    private static int parseStepNumber(String keyPress) {
+        int charCount = 0;
+
+        // validate input
+        while (charCount < keyPress.length()) {
+            int charCode = keyPress.charAt(charCount);
+
+            if (charCode < ASCII_LOWER_BOUNDARY || charCode > ASCII_HIGHER_BOUNDARY) {
+                return -1;
+            }
+            charCount++;
+        }
+        if (charCount == 0 || charCount > 9) {
+            return -1;
         }
+        return Integer.parseInt(keyPress);
     }
-}
\ No newline at end of file
+}
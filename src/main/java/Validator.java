@@ -1,19 +1,41 @@
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Contains the constraints to the sudoku problem.
+ * Instances are immutable and shared between all boards of the same complexity,
+ * so a validator can be used from any thread at the same time.
  * 
  * @author László Tárkányi
  */
 public class Validator {
     // Instance variables
 
-    private static int complexity;
-    private static int interval;
+    private static final ConcurrentHashMap<Integer, Validator> CACHE = new ConcurrentHashMap<Integer, Validator>();
+
+    private final Geometry geometry;
+    private final int complexity;
 
     // Constructor
 
-    public Validator(int complexity) {
-        Validator.complexity = complexity;
-        Validator.interval = (int)Math.sqrt(complexity);
+    private Validator(int complexity) {
+        this.geometry = Geometry.of(complexity);
+        this.complexity = complexity;
+    }
+
+    /**
+     * Gets the shared validator of a complexity.
+     * 
+     * @param complexity The length of one side of the board.
+     * @return The validator, built on first use.
+     */
+    public static Validator of(int complexity) {
+        return CACHE.computeIfAbsent(complexity, Validator::new);
+    }
+
+    // Accessors
+
+    public int getComplexity() {
+        return this.complexity;
     }
 
     // Class methods
@@ -21,53 +43,25 @@ public class Validator {
     /**
      * Checks whether the fully generated board is valid according to the rules of sudoku.
      * 
-     * @param b The game board.
+     * @param b The game board, of the complexity of the validator.
      * @return The board is valid or invalid.
      */
-    public static boolean isCorrectlyGenerated(Board b) {
+    public boolean isCorrectlyGenerated(Board b) {
+        checkComplexity(b);
         return areSubMatricesCorrect(b) && areRowsCorrect(b) && areColumnsCorrect(b);
     }
 
     /**
      * Checks whether the numbers in all sub-matrices (or grids) are correct.
-     * Takes the square root of the complexity of the puzzle and loops through
-     * the sub-matrices.
-     * Example: (9 -> 0, 3, 6); (16 -> 0, 4, 8, 12)
      * 
      * @param b The game board.
-     * @return The sub-matrix is valid or invalid.
+     * @return The sub-matrices are valid or invalid.
      */
-    private static boolean areSubMatricesCorrect(Board b) {
-        // store the corner of each sub-matrix as a starting point
-        Coordinate cornerCoordinate = new Coordinate();
-
-        // loop through the columns of the board, in intervals of the complexity's square root
-        while (cornerCoordinate.getRow() < complexity) {
-            // create new array every time we reach a new sub-matrix
-            int [] sequence = new int[complexity];
-            int sequenceIndex = 0;
-
-            // loop through the rows of the sub-matrix
-            for (int i = 0; i < interval; i++) {
-                // loop through the columns of the sub-matrix
-                for (int j = 0; j < interval; j++) {
-                    // store values of the sub-matrix in an array
-                    sequence[sequenceIndex] = b.getValue(new Coordinate(cornerCoordinate.getRow() + i, cornerCoordinate.getColumn() + j));
-                    for (int k = 0; k < sequenceIndex; k++) {
-                        // compare newly added element to the rest of the array
-                        if (sequence[k] == sequence[sequenceIndex]) {
-                            // duplicate found
-                            return false;
-                        }
-                    }
-                    sequenceIndex++;
-                }
-            }
-            // skip to the next sub-matrix in a grid pattern
-            cornerCoordinate.setColumn(cornerCoordinate.getColumn() + interval);
-            if (cornerCoordinate.getColumn() == complexity) {
-                cornerCoordinate.setRow(cornerCoordinate.getRow() + interval);
-                cornerCoordinate.setColumn(0);
+    private boolean areSubMatricesCorrect(Board b) {
+        int[] seen = new int[this.complexity];
+        for (int i = 0; i < this.geometry.getCellCount(); i++) {
+            if (!markSeen(seen, this.geometry.boxOf(i), b.get(i))) {
+                return false;
             }
         }
         return true;
@@ -77,25 +71,13 @@ public class Validator {
      * Checks whether the numbers in all rows are correct.
      * 
      * @param b The game board.
-     * @return The row is valid or invalid.
+     * @return The rows are valid or invalid.
      */
-    private static boolean areRowsCorrect(Board b) {
-        // loop through the rows of the board
-        for (int i = 0; i < complexity; i++) {
-            // create new array every time we reach a new row
-            int[] sequence = new int[complexity];
-            int sequenceIndex = 0;
-
-            for (int j = 0; j < complexity; j++) {
-                // store values of the row in an array
-                sequence[sequenceIndex] = b.getValue(new Coordinate(i, j));
-                for (int k = 0; k < sequenceIndex; k++) {
-                    // compare newly added element to the rest of the array
-                    if (sequence[k] == sequence[sequenceIndex]) {
-                        return false; // duplicate found
-                    }
-                }
-                sequenceIndex++;
+    private boolean areRowsCorrect(Board b) {
+        int[] seen = new int[this.complexity];
+        for (int i = 0; i < this.geometry.getCellCount(); i++) {
+            if (!markSeen(seen, this.geometry.rowOf(i), b.get(i))) {
+                return false;
             }
         }
         return true;
@@ -105,30 +87,39 @@ public class Validator {
      * Checks whether the numbers in all columns are correct.
      * 
      * @param b The game board.
-     * @return The column is valid or invalid.
+     * @return The columns are valid or invalid.
      */
-    private static boolean areColumnsCorrect(Board b) {
-        // loop through the column of the board
-        for (int i = 0; i < complexity; i++) {
-            // create new array every time we reach a new column
-            int[] sequence = new int[complexity];
-            int sequenceIndex = 0;
-
-            for (int j = 0; j < complexity; j++) {
-                // store values of the column in an array
-                sequence[sequenceIndex] = b.getValue(new Coordinate(i, j));
-                for (int k = 0; k < sequenceIndex; k++) {
-                    // compare newly added element to the rest of the array
-                    if (sequence[k] == sequence[sequenceIndex]) {
-                        return false; // duplicate found
-                    }
-                }
-                sequenceIndex++;
+    private boolean areColumnsCorrect(Board b) {
+        int[] seen = new int[this.complexity];
+        for (int i = 0; i < this.geometry.getCellCount(); i++) {
+            if (!markSeen(seen, this.geometry.columnOf(i), b.get(i))) {
+                return false;
             }
         }
         return true;
     }
 
+    /**
+     * Marks a number as seen in a unit. The numbers seen in every unit are kept as bitmasks
+     * local to the check, so that checks never share state.
+     * 
+     * @param seen The bitmasks of the units.
+     * @param unit The unit of the field.
+     * @param value The number in the field.
+     * @return False if the field is empty, out of range or a duplicate in its unit.
+     */
+    private boolean markSeen(int[] seen, int unit, int value) {
+        if (value < 1 || value > this.complexity) {
+            return false;
+        }
+        int bit = 1 << value;
+        if ((seen[unit] & bit) != 0) {
+            return false; // duplicate found
+        }
+        seen[unit] |= bit;
+        return true;
+    }
+
     /**
      * Check if the location is correct according to
      * the rules for a new number to be inserted into the board.
@@ -139,32 +130,8 @@ public class Validator {
      * @return The number can be inserted into the given location or not.
      */
     public boolean isLocationValid(Coordinate cursor, int num, Board b) {
-        // find nearest sub-matrix corner
-        Coordinate corner = new Coordinate(cursor.getRow() - (cursor.getRow() % interval), cursor.getColumn() - (cursor.getColumn() % interval));
-
-        // check the sub-matrix of the location
-        for (int i = corner.getRow(); i < corner.getRow() + interval; i++) {
-            for (int j = corner.getColumn(); j < corner.getColumn() + interval; j++) {
-                if (b.getValue(new Coordinate(i, j)) == num) {
-                    return false;
-                }
-            }
-        }
-
-        // check the row of the location
-        for (int i = 0; i < complexity; i++) {
-            if (b.getValue(new Coordinate(cursor.getRow(), i)) == num) {
-                return false;
-            }
-        }
-
-        // check the column of the location
-        for (int i = 0; i < complexity; i++) {
-            if (b.getValue(new Coordinate(i, cursor.getColumn())) == num) {
-                return false;
-            }
-        }
-        return true;
+        // a single lookup in the row, column and sub-matrix bitmasks of the board
+        return b.getConstraints().isAllowed(cursor.getRow(), cursor.getColumn(), num);
     }
 
     /**
@@ -174,15 +141,13 @@ public class Validator {
      * @return The grid contains an empty square or not.
      */
     public boolean hasEmptySquare(Board b) {
-        // loop through the rows of the board
-        for (int i = 0; i < complexity; i++) {
-            // loop through the columns of the board
-            for (int j = 0; j < complexity; j++) {
-                if (b.getValue(new Coordinate(i, j)) == 0) {
-                    return true;
-                }
-            }
+        // the board keeps count of its empty fields
+        return b.getEmptyCount() > 0;
+    }
+
+    private void checkComplexity(Board b) {
+        if (b.getComplexity() != this.complexity) {
+            throw new IllegalArgumentException("Board complexity " + b.getComplexity() + " does not match " + this.complexity);
         }
-        return false;
     }
-}
\ No newline at end of file
+}
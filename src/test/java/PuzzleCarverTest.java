@@ -0,0 +1,75 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that puzzles carved for a difficulty need the technique of the difficulty,
+ * not only that they keep a single solution.
+ *
+ * @author László Tárkányi
+ */
+public class PuzzleCarverTest {
+    private static final int COMPLEXITY = 9;
+    private static final int PUZZLES = 10;
+
+    @Test
+    public void easyPuzzlesNeedHiddenSingles() {
+        assertCarvedTo(Difficulty.EASY);
+    }
+
+    @Test
+    public void intermediatePuzzlesNeedPointing() {
+        assertCarvedTo(Difficulty.INTERMEDIATE);
+    }
+
+    @Test
+    public void expertPuzzlesNeedXWings() {
+        assertCarvedTo(Difficulty.EXPERT);
+    }
+
+    @Test
+    public void gamerPuzzlesNeedGuessing() {
+        assertCarvedTo(Difficulty.GAMER);
+    }
+
+    @Test
+    public void carvingWithoutTargetKeepsTheRequestedClues() {
+        Random random = new Random(1);
+        Board puzzle = solution(random);
+        PuzzleCarver carver = new PuzzleCarver(COMPLEXITY);
+
+        int removed = carver.carve(puzzle, 40, random);
+
+        assertEquals(COMPLEXITY * COMPLEXITY - 40, removed);
+        assertEquals(1, new SolutionCounter(COMPLEXITY).countSolutions(puzzle, 2));
+        assertEquals(null, carver.getGrade());
+    }
+
+    private static void assertCarvedTo(Difficulty difficulty) {
+        Random random = new Random(difficulty.ordinal());
+        PuzzleCarver carver = new PuzzleCarver(COMPLEXITY);
+        TechniqueGrader grader = new TechniqueGrader(COMPLEXITY);
+        SolutionCounter counter = new SolutionCounter(COMPLEXITY);
+        Technique target = difficulty.getHardestTechnique();
+
+        for (int i = 0; i < PUZZLES; i++) {
+            Board puzzle = solution(random);
+            carver.carve(puzzle, difficulty.getNumOfClues(COMPLEXITY), target, random);
+            Technique grade = grader.grade(puzzle);
+
+            assertEquals(1, counter.countSolutions(puzzle, 2), "puzzle " + i + " is not unique");
+            assertEquals(grade, carver.getGrade(), "puzzle " + i + " reports the wrong grade");
+            assertTrue(grade.isAtMost(target), "puzzle " + i + " needs " + grade + ", harder than " + target);
+            assertTrue(target.isAtMost(grade), "puzzle " + i + " only needs " + grade + ", easier than " + target);
+        }
+    }
+
+    private static Board solution(Random random) {
+        Board board = new Board(COMPLEXITY);
+        BoardFactory.generateSolution(board, COMPLEXITY, BoardFactory.Engine.DANCING_LINKS, random);
+        return board;
+    }
+}